@@ -1,6 +1,7 @@
 import codegen.CodeGenerator;
 import config.Configuration;
-import dk.DK1;
+import dk.ParseTable;
+import dk.ParseTableCache;
 import grammar.Grammar;
 import table.FunctionTable;
 import table.MemoryTable;
@@ -9,6 +10,7 @@ import tree.DTE;
 import util.TypeUtils;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 import static util.Context.DEBUG;
@@ -56,21 +58,18 @@ public class Main {
 
         String grammarFilePath = "src/main/java/grammar/Grammar.txt";
         String terminalsFilePath = "src/main/java/grammar/Terminals.txt";
+        Path parseTableCachePath = Path.of("target/parse-tables.bin");
 
         DEBUG = true;
 
 
-        Grammar g = new Grammar(grammarFilePath, terminalsFilePath);
+        // Grammar.Level.TOKEN parses the output of the lexer instead of single characters
+        Grammar g = new Grammar(grammarFilePath, terminalsFilePath, Grammar.Level.CHARACTER);
 
         System.out.println(g);
 
-        DK1 dk1 = new DK1(g);
-
-        log("number of states: " + dk1.getStates().size());
-        log("-----------------------");
-        log("DK1 test passed = " + dk1.dk1Test());
-        log("-----------------------");
-        log("\n");
+        // The DK1 automaton is only built when the grammar changed since the tables were cached
+        ParseTable parseTable = ParseTableCache.loadOrBuild(g, grammarFilePath, terminalsFilePath, parseTableCachePath);
 
 
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
@@ -90,7 +89,8 @@ public class Main {
             }
 
             try {
-                DTE parsedTree = dk1.parseString(code.toString());
+                // The semantic passes skip whitespace anyway, so the tree is built without it
+                DTE parsedTree = parseTable.parse(g.tokenize(code.toString()), true, true);
 
                 // Print the ParsedTree
                 log("The Parse Tree: ");
@@ -0,0 +1,7 @@
+package ast;
+
+import java.util.List;
+
+// The lowered body of a function: its statements and the return statement that ends it.
+public record Body(List<Node> statements, Node.Return result) {
+}
@@ -0,0 +1,256 @@
+package ast;
+
+import ast.Node.Access;
+import ast.Node.AccessKind;
+import ast.Node.Assign;
+import ast.Node.BinOp;
+import ast.Node.Call;
+import ast.Node.Const;
+import ast.Node.IdPath;
+import ast.Node.If;
+import ast.Node.Neg;
+import ast.Node.New;
+import ast.Node.Not;
+import ast.Node.Return;
+import ast.Node.While;
+import model.VarType;
+import tree.DTE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static util.TypeUtils.checkTokenType;
+
+// Lowers the derivation tree of a function body to typed nodes, see ‘Node’. This is the only pass of the code generation that reads labels:
+// it walks every node of the body once, and the code generator works on the result.
+// The derivation trees of both grammar levels and trees with or without layout lower to the same nodes.
+public class Lowering {
+
+    private Lowering() {
+    }
+
+    // <body> -> <rSt> | <StS>;<rSt>
+    public static Body lowerBody(DTE body) {
+        checkTokenType(body, "<body>");
+
+        DTE first = body.getFirstSon();
+        if (first.isType("<rSt>")) {
+            return new Body(List.of(), lowerReturn(first));
+        }
+        return new Body(lowerStatements(first), lowerReturn(first.getNthBrother(2)));
+    }
+
+    // <StS> -> <St> | <StS>;<St>
+    // The list is left-recursive, so it is walked down its left spine instead of recursively.
+    private static List<Node> lowerStatements(DTE sts) {
+        List<Node> result = new ArrayList<>();
+        DTE current = sts;
+        while (true) {
+            checkTokenType(current, "<StS>");
+            DTE first = current.getFirstSon();
+            if (first.getBrother() == null) {
+                result.add(lowerStatement(first));
+                break;
+            }
+            result.add(lowerStatement(first.getNthBrother(2)));
+            current = first;
+        }
+        Collections.reverse(result);
+        return List.copyOf(result);
+    }
+
+    private static Node lowerStatement(DTE st) {
+        checkTokenType(st, "<St>");
+
+        DTE first = st.getFirstSon();
+        DTE second = first.getBrother();
+
+        // <id> = <E> | <id> = <BE> | <id> = <CC> | <id> = <Na>(<PaS>?) | <id> = new <Na>'
+        if (second.isType("=")) {
+            IdPath target = lowerId(first);
+            DTE value = second.getBrother();
+            return switch (value.labelContent()) {
+                case "new" -> new New(target);
+                case "<Na>" -> {
+                    DTE parameters = value.getNthBrother(2);
+                    List<Node> arguments = parameters.isType("<PaS>") ? lowerArguments(parameters) : List.of();
+                    yield new Call(target, value.getBorderWord(), arguments);
+                }
+                default -> new Assign(target, lowerValue(value));
+            };
+        }
+
+        // while <BE> { <StS> }
+        if (first.isType("while")) {
+            return new While(lowerBooleanExpression(second), lowerStatements(first.getNthBrother(3)));
+        }
+
+        // if <BE> { <StS> } | if <BE> { <StS> } else { <StS> }
+        if (first.isType("if")) {
+            boolean hasElse = first.getNthBrother(4).getBrother() != null;
+            List<Node> otherwise = hasElse ? lowerStatements(first.getNthBrother(7)) : null;
+            return new If(lowerBooleanExpression(second), lowerStatements(first.getNthBrother(3)), otherwise);
+        }
+
+        throw new IllegalArgumentException("Grammar error on \"" + st.getBorderWord() + "\"");
+    }
+
+    // <rSt> -> return <E> | return <BE> | return <CC>
+    private static Return lowerReturn(DTE rSt) {
+        checkTokenType(rSt, "<rSt>");
+        return new Return(lowerValue(rSt.getNthSon(2)));
+    }
+
+    // <PaS> -> <Pa> | <PaS>,<Pa>, where <Pa> -> <E> | <BE> | <CC>
+    private static List<Node> lowerArguments(DTE paS) {
+        List<Node> result = new ArrayList<>();
+        DTE current = paS;
+        while (true) {
+            checkTokenType(current, "<PaS>");
+            DTE first = current.getFirstSon();
+            if (first.getBrother() == null) {
+                result.add(lowerArgument(first));
+                break;
+            }
+            result.add(lowerArgument(first.getNthBrother(2)));
+            current = first;
+        }
+        Collections.reverse(result);
+        return List.copyOf(result);
+    }
+
+    private static Node lowerArgument(DTE pa) {
+        checkTokenType(pa, "<Pa>");
+        return lowerValue(pa.getFirstSon());
+    }
+
+    // An arithmetic or boolean expression or a character constant, as assigned, returned and passed.
+    private static Node lowerValue(DTE value) {
+        return switch (value.labelContent()) {
+            case "<E>" -> lowerExpression(value);
+            case "<BE>" -> lowerBooleanExpression(value);
+            // The derivations of <CC> are one character each
+            case "<CC>" -> new Const(VarType.CHAR_TYPE, value.getBorderWord().charAt(0));
+            default -> throw new IllegalArgumentException("Expected any of [<E>, <BE>, <CC>], got " + value.labelContent());
+        };
+    }
+
+    // <E> -> <T> | <E>+<T> | <E>-<T>
+    // <T> -> <F> | <T>*<F> | <T>/<F>
+    // <F> -> <id> | -<F> | (<E>) | <C>
+    private static Node lowerExpression(DTE expression) {
+        checkTokenType(expression, "<E>", "<T>", "<F>");
+
+        // any of <E>, <T>, <F> token's derivations has at most 3 children.
+        DTE first = expression.getFirstSon();
+        DTE second = first.getBrother();
+        DTE third = second == null ? null : second.getBrother();
+
+        if (third != null) {
+            // (<E>)
+            if (first.isType("(")) {
+                return lowerExpression(second);
+            }
+            return new BinOp(Operator.of(second.labelContent()), lowerExpression(first), lowerExpression(third));
+        }
+
+        if (second != null) { // only possible case is -F (unary minus on factor)
+            checkTokenType(first, "-");
+            return new Neg(lowerExpression(second));
+        }
+
+        return switch (first.labelContent()) {
+            case "<T>", "<F>" -> lowerExpression(first);
+            case "<id>" -> lowerId(first);
+            case "<C>" -> lowerNumber(first);
+            default -> throw new IllegalArgumentException("Expected any of [<T>, <F>, <id>, <C>], got " + first.labelContent());
+        };
+    }
+
+    // <C> -> <DiS> | <DiS>u | null
+    private static Const lowerNumber(DTE constant) {
+        String value = constant.getBorderWord();
+        if (value.charAt(value.length() - 1) != 'u') {
+            return new Const(VarType.INT_TYPE, Integer.parseInt(value));
+        }
+        return new Const(VarType.UINT_TYPE, Integer.parseInt(value.substring(0, value.length() - 1)));
+    }
+
+    // <BE> -> <BT> | <BE>||<BT>
+    // <BT> -> <BF> | <BT>&&<BF>
+    // <BF> -> (bool)<id> | <Atom> | !<BF> | (<BE>)
+    private static Node lowerBooleanExpression(DTE be) {
+        checkTokenType(be, "<BE>", "<BT>", "<BF>");
+
+        DTE first = be.getFirstSon();
+        DTE second = first.getBrother();
+
+        switch (first.labelContent()) {
+            case "(":
+                // (bool)<id> is the value of the id
+                if (second.isType("bool")) {
+                    return lowerId(first.getNthBrother(3));
+                }
+                return lowerBooleanExpression(second);
+            case "<Atom>":
+                return lowerAtom(first);
+            case "!":
+                return new Not(lowerBooleanExpression(second));
+            case "<BE>", "<BT>", "<BF>":
+                if (second == null) {
+                    return lowerBooleanExpression(first);
+                }
+                return new BinOp(Operator.of(second.labelContent()), lowerBooleanExpression(first), lowerBooleanExpression(second.getBrother()));
+            default:
+                throw new IllegalArgumentException("Grammar error! \"" + be.getBorderWord() + "\"");
+        }
+    }
+
+    // <Atom> -> <E>><E> | <E>>=<E> | <E><<E> | <E><=<E> | <E>==<E> | <E>!=<E> | <BC>
+    private static Node lowerAtom(DTE atom) {
+        checkTokenType(atom, "<Atom>");
+
+        DTE left = atom.getFirstSon();
+        if (left.isType("<BC>")) {
+            return new Const(VarType.BOOL_TYPE, left.getFirstSon().isType("true") ? 1 : 0);
+        }
+
+        DTE op = left.getBrother();
+        Operator operator = Operator.of(op.labelContent());
+        if (!operator.isComparison()) {
+            throw new IllegalArgumentException("Grammar error on \"" + atom.getBorderWord() + "\"");
+        }
+        return new BinOp(operator, lowerExpression(left), lowerExpression(op.getBrother()));
+    }
+
+    // <id> -> <Na> | <id>.<Na> | <id>[<E>] | <id>' | <id>&
+    // The id is left-recursive: its accesses are collected walking down to the name, and then put in their order.
+    private static IdPath lowerId(DTE id) {
+        List<Access> accesses = new ArrayList<>();
+        DTE current = id;
+        while (true) {
+            checkTokenType(current, "<id>");
+            DTE first = current.getFirstSon();
+            if (first.isType("<Na>")) {
+                Collections.reverse(accesses);
+                return new IdPath(first.getBorderWord(), List.copyOf(accesses));
+            }
+
+            DTE second = first.getBrother();
+            Access access = switch (second.labelContent()) {
+                case "." -> new Access(AccessKind.COMPONENT, second.getBrother().getBorderWord(), null);
+                case "[" -> new Access(AccessKind.INDEX, null, lowerExpression(second.getBrother()));
+                case "'" -> new Access(AccessKind.DEREF, null, null);
+                case "&" -> {
+                    // Only the address of a variable can be taken
+                    checkTokenType(first.getFirstSon(), "<Na>");
+                    yield new Access(AccessKind.ADDRESS, null, null);
+                }
+                default -> throw new IllegalArgumentException("Grammar error on \"" + current.getBorderWord() + "\"");
+            };
+            accesses.add(access);
+            current = first;
+        }
+    }
+}
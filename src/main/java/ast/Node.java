@@ -0,0 +1,103 @@
+package ast;
+
+import model.VarType;
+
+import java.util.List;
+
+// A node of the typed syntax tree of a function body, made from its derivation tree by ‘Lowering’.
+// The nodes keep only what the code generator needs: operators are resolved to ‘Operator’, constants to their type and value, names to strings,
+// and parentheses, unit chains and separators are gone. The code generator switches on the kind of a node instead of comparing labels.
+public interface Node {
+
+    enum Kind {
+        ASSIGN, NEW, CALL, IF, WHILE, RETURN, BIN_OP, NEG, NOT, ID_PATH, CONST
+    }
+
+    Kind kind();
+
+    // id = value, where the value is an arithmetic or boolean expression or a character constant
+    record Assign(IdPath target, Node value) implements Node {
+        public Kind kind() {
+            return Kind.ASSIGN;
+        }
+    }
+
+    // id = new Na'
+    record New(IdPath target) implements Node {
+        public Kind kind() {
+            return Kind.NEW;
+        }
+    }
+
+    // id = Na(PaS) or id = Na(); the arguments are empty for the latter
+    record Call(IdPath target, String function, List<Node> arguments) implements Node {
+        public Kind kind() {
+            return Kind.CALL;
+        }
+    }
+
+    // if BE {StS} and if BE {StS} else {StS}; 'otherwise' is null without an else part
+    record If(Node condition, List<Node> then, List<Node> otherwise) implements Node {
+        public Kind kind() {
+            return Kind.IF;
+        }
+    }
+
+    // while BE {StS}
+    record While(Node condition, List<Node> body) implements Node {
+        public Kind kind() {
+            return Kind.WHILE;
+        }
+    }
+
+    // return E, return BE and return CC
+    record Return(Node value) implements Node {
+        public Kind kind() {
+            return Kind.RETURN;
+        }
+    }
+
+    // Arithmetic operations, comparisons, && and ||
+    record BinOp(Operator operator, Node left, Node right) implements Node {
+        public Kind kind() {
+            return Kind.BIN_OP;
+        }
+    }
+
+    // -F
+    record Neg(Node operand) implements Node {
+        public Kind kind() {
+            return Kind.NEG;
+        }
+    }
+
+    // !BF
+    record Not(Node operand) implements Node {
+        public Kind kind() {
+            return Kind.NOT;
+        }
+    }
+
+    // A variable name followed by the accesses of an id, from left to right: Na.Na[E]' is the path (Na, [COMPONENT, INDEX, DEREF]).
+    // (bool)id is lowered to the path of the id, which is how it is evaluated.
+    record IdPath(String name, List<Access> accesses) implements Node {
+        public Kind kind() {
+            return Kind.ID_PATH;
+        }
+    }
+
+    // One access of an id path: a struct component, an array index, a pointer dereference or the address of the variable.
+    record Access(AccessKind kind, String component, Node index) {
+    }
+
+    enum AccessKind {
+        COMPONENT, INDEX, DEREF, ADDRESS
+    }
+
+    // A number, bool or character constant with its value; unsigned constants are written with the suffix u.
+    record Const(VarType type, int value) implements Node {
+        public Kind kind() {
+            return Kind.CONST;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The binary operators of expressions, resolved from their terminals once when a tree is lowered.
+public enum Operator {
+    ADD("+"), SUB("-"), MUL("*"), DIV("/"),
+    GT(">"), GE(">="), LT("<"), LE("<="), EQ("=="), NE("!="),
+    AND("&&"), OR("||");
+
+    private static final Map<String, Operator> BY_SYMBOL = new HashMap<>();
+
+    static {
+        for (Operator operator : values()) {
+            BY_SYMBOL.put(operator.symbol, operator);
+        }
+    }
+
+    private final String symbol;
+
+    Operator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    // Returns the operator written as the given terminal.
+    public static Operator of(String symbol) {
+        Operator result = BY_SYMBOL.get(symbol);
+        if (result == null) {
+            throw new IllegalArgumentException("Expected binary operator, got " + symbol);
+        }
+        return result;
+    }
+
+    // Whether the operator compares two numbers and yields a bool.
+    public boolean isComparison() {
+        return ordinal() >= GT.ordinal() && ordinal() <= NE.ordinal();
+    }
+
+    // Whether the operator combines two bools.
+    public boolean isLogical() {
+        return this == AND || this == OR;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public String toString() {
+        return symbol;
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import dk.DK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+// Measures the border words of all nodes of a parse tree, as the semantic passes ask for them, for both grammar levels.
+// Every node is asked twice: the first pass makes the border words, the second one finds those of the leaves again and cuts the others anew.
+public class BorderWordBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    private static final int STATEMENTS = 200;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        StringBuilder program = new StringBuilder("int x; int y; int main(){x = 0");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x + y*(x-2); if x>100 {y = -y}");
+        }
+        program.append("; return x}~");
+
+        System.out.println("level       nodes  characters  first pass(ms)  second pass(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ParseTable table = new DK1(g).getParseTable();
+            ArrayList<Token> tokens = g.tokenize(program.toString());
+
+            long bestFirst = Long.MAX_VALUE;
+            long bestSecond = Long.MAX_VALUE;
+            long[] counts = null;
+            for (int i = 0; i < ROUNDS; i++) {
+                DTE tree = table.parse(tokens, false);
+                long begin = System.nanoTime();
+                counts = borderWords(tree);
+                long first = System.nanoTime();
+                borderWords(tree);
+                long second = System.nanoTime();
+                bestFirst = Math.min(bestFirst, first - begin);
+                bestSecond = Math.min(bestSecond, second - first);
+            }
+            System.out.printf("%-9s  %6d  %10d  %14.1f  %15.1f%n", level, counts[0], counts[1], bestFirst / 1e6, bestSecond / 1e6);
+        }
+    }
+
+    // Asks every node of the tree for its border word. Returns the number of nodes and the total length of their border words.
+    private static long[] borderWords(DTE root) {
+        long[] result = {0, 0};
+        ArrayDeque<DTE> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DTE dte = stack.pop();
+            result[0]++;
+            result[1] += dte.getBorderWord().length();
+            for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+                stack.push(son);
+            }
+        }
+        return result;
+    }
+}
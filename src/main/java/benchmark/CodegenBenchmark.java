@@ -0,0 +1,110 @@
+package benchmark;
+
+import codegen.CodeGenerator;
+import config.Configuration;
+import dk.DK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import table.FunctionTable;
+import table.MemoryTable;
+import table.TypeTable;
+import tree.DTE;
+import util.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Measures the code generation of parsed programs end to end, as ‘Main’ runs it: the tables are filled from the tree and the code of 'main' and
+// every function it calls is generated, for both grammar levels. The trees are parsed once, without layout; every round starts from empty tables.
+public class CodegenBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // Test programs of ‘Main’ and a program that uses structs, pointers and a function call.
+    private static final String[] PROGRAMS = {
+            "bool benjamin; bool c; int main(){benjamin=(bool)c||false;return 1}~",
+            "int x; int main(){x=-14; return 1}~",
+            "int x; int main(){x=2; if true {x=4} else {x=9};return 3}~",
+            "typedef int[6] arr; arr a;int main(){a[0]=5;return 1}~",
+            "typedef struct {int a; uint b} st; typedef st' stp; st s; stp p; int x; int f(int a, int b){int c; c = a*b+(3-a)/2; return c}; "
+                    + "int main(){x = f(2, 3); while x>0 {x = x - 1}; s.a = 4; s.b = 7u; return x}~",
+    };
+
+    private static final int STATEMENTS = 300;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) throws Exception {
+        Context.DEBUG = false;
+
+        StringBuilder program = new StringBuilder("typedef int[6] arr; arr a; int x; int y; int f(int a, int b){int c; c = a*b+(3-a)/2; return c}; int main(){x = 0; y = 1");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x + y*(x-2); if x>100 {y = -y} else {y = y+1}; while y>0 {y = y-1}; a[3] = f(x, 2)");
+        }
+        program.append("; return x}~");
+
+        List<Grammar> grammars = new ArrayList<>();
+        List<DTE[]> cases = new ArrayList<>();
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ParseTable table = new DK1(g).getParseTable();
+
+            DTE[] small = new DTE[PROGRAMS.length];
+            for (int i = 0; i < PROGRAMS.length; i++) {
+                small[i] = table.parse(g.tokenize(PROGRAMS[i]), true, true);
+            }
+            grammars.add(g);
+            cases.add(small);
+            grammars.add(g);
+            cases.add(new DTE[]{table.parse(g.tokenize(program.toString()), true, true)});
+        }
+
+        // All cases are warmed up before any is measured, so that the first one doesn't pay for the compilation of the code generator
+        long[] instructions = new long[cases.size()];
+        for (int i = 0; i < ROUNDS; i++) {
+            for (int c = 0; c < cases.size(); c++) {
+                instructions[c] = generate(grammars.get(c), cases.get(c));
+            }
+        }
+
+        System.out.println("level      programs  instructions  codegen(ms)  per instruction(ns)");
+        for (int c = 0; c < cases.size(); c++) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; i++) {
+                long begin = System.nanoTime();
+                generate(grammars.get(c), cases.get(c));
+                best = Math.min(best, System.nanoTime() - begin);
+            }
+            System.out.printf("%-9s  %-8s  %12d  %11.3f  %19.1f%n", grammars.get(c).getLevel(), c % 2 == 0 ? "test" : "large", instructions[c], best / 1e6,
+                    (double) best / instructions[c]);
+        }
+    }
+
+    // Fills the tables and generates the code of every tree, as ‘Main’ does. Returns the number of instructions.
+    private static long generate(Grammar g, DTE... trees) throws Exception {
+        long result = 0;
+        for (DTE program : trees) {
+            DTE current = program.getFirstSon();
+            if (current.isType("<TyDS>")) {
+                TypeTable.getInstance().fillTable(current);
+                current = current.getNthBrother(2);
+            }
+            if (current.isType("<VaDS>")) {
+                MemoryTable.getInstance().fillTable(current);
+                current = current.getNthBrother(2);
+            }
+            FunctionTable.getInstance().fillTable(current);
+
+            CodeGenerator.getInstance().setGrammar(g);
+            CodeGenerator.getInstance().generateCode();
+            result += CodeGenerator.getInstance().getInstructions().lines().count();
+
+            TypeTable.reset();
+            MemoryTable.reset();
+            FunctionTable.reset();
+            Configuration.reset();
+            CodeGenerator.reset();
+        }
+        return result;
+    }
+}
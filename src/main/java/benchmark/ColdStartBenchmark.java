@@ -0,0 +1,49 @@
+package benchmark;
+
+import dk.DK1;
+import grammar.Grammar;
+import util.Context;
+
+import java.io.IOException;
+
+// Measures the time from reading the grammar to the first parsed program, with the eager and the lazy DK1 automaton.
+// The first parse of a JVM is what matters here, so every mode should be measured in a fresh JVM: pass "eager" or "lazy" as the argument.
+// Without an argument both modes are measured one after the other, the second one then runs on a warmer JVM.
+public class ColdStartBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // A small program in the style of the test programs of ‘Main’.
+    private static final String PROGRAM = "int x; int f(int a){return a*2}; int main(){x = f(3); while x>0 {x = x - 1}; return x}~";
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        if (args.length == 0) {
+            measure(false);
+            measure(true);
+        } else {
+            measure(args[0].equals("lazy"));
+        }
+    }
+
+    private static void measure(boolean lazy) throws IOException {
+        long begin = System.nanoTime();
+
+        Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH);
+        long grammarRead = System.nanoTime();
+
+        DK1 dk1 = lazy ? DK1.lazy(g) : new DK1(g);
+        int statesBeforeParsing = dk1.getStates().size();
+        long automatonBuilt = System.nanoTime();
+
+        dk1.parseString(PROGRAM);
+        long firstParse = System.nanoTime();
+
+        System.out.printf("%-5s  grammar %6.1f ms  automaton %7.1f ms  first parse %6.1f ms  total %7.1f ms  states %d -> %d%n",
+                lazy ? "lazy" : "eager",
+                (grammarRead - begin) / 1e6, (automatonBuilt - grammarRead) / 1e6, (firstParse - automatonBuilt) / 1e6, (firstParse - begin) / 1e6,
+                statesBeforeParsing, dk1.getStates().size());
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import dk.DK1;
+import dk.LALR1;
+import grammar.Grammar;
+import util.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Measures how the construction time of the DK1 automaton scales with the size of the grammar.
+// Synthetic grammars are layered expression grammars, one layer per binary operator, in the style of <E>/<T>/<F> of 'Grammar.txt'.
+// The shipped grammar is measured last for reference. The canonical LR(1) construction is compared with the LALR(1) construction of ‘LALR1’.
+public class DK1Benchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // The binary operators used by the layers of the synthetic grammars. Their number bounds the number of layers.
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "&", "|", "=", "<", ">", "!", "?", "@", "#", "$", "%"};
+
+    // Number of measured constructions per grammar. The best time is reported, after one warm-up construction.
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        System.out.println("layers  productions  states  time(ms)  lalr-states  lalr-time(ms)  lalr-conflicts");
+        for (int layers = 1; layers <= OPERATORS.length; layers += 2) {
+            File grammarFile = File.createTempFile("grammar", ".txt");
+            File terminalsFile = File.createTempFile("terminals", ".txt");
+            grammarFile.deleteOnExit();
+            terminalsFile.deleteOnExit();
+            Files.writeString(grammarFile.toPath(), syntheticGrammar(layers));
+            Files.writeString(terminalsFile.toPath(), syntheticTerminals(layers));
+
+            Grammar g = new Grammar(grammarFile.getPath(), terminalsFile.getPath());
+            report(String.valueOf(layers), g);
+        }
+
+        report("C0", new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH));
+    }
+
+    // Builds both automata of the given grammar several times and prints the best construction times.
+    private static void report(String name, Grammar g) {
+        new DK1(g);
+        new LALR1(g);
+
+        long best = Long.MAX_VALUE;
+        int states = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            DK1 dk1 = new DK1(g);
+            best = Math.min(best, System.nanoTime() - begin);
+            states = dk1.getStates().size();
+        }
+
+        long bestLalr = Long.MAX_VALUE;
+        int lalrStates = 0;
+        int lalrConflicts = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            LALR1 lalr1 = new LALR1(g);
+            bestLalr = Math.min(bestLalr, System.nanoTime() - begin);
+            lalrStates = lalr1.getAutomaton().getStates().size();
+            lalrConflicts = lalr1.getConflicts().size();
+        }
+
+        System.out.printf("%6s  %11d  %6d  %8.1f  %11d  %13.1f  %14d%n", name, g.getProductions().size(), states, best / 1e6, lalrStates, bestLalr / 1e6, lalrConflicts);
+    }
+
+    // <S> -> <E0>~
+    // <Ei> -> <Ei>op<Ei+1> | <Ei+1>
+    // <En> -> (<E0>) | a
+    private static String syntheticGrammar(int layers) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<S> -> <E0>~\n");
+        for (int i = 0; i < layers; i++) {
+            sb.append("<E").append(i).append("> -> <E").append(i).append(">").append(OPERATORS[i])
+                    .append("<E").append(i + 1).append("> | <E").append(i + 1).append(">\n");
+        }
+        sb.append("<E").append(layers).append("> -> (<E0>) | a");
+        return sb.toString();
+    }
+
+    private static String syntheticTerminals(int layers) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < layers; i++) {
+            sb.append(OPERATORS[i]).append("\n");
+        }
+        sb.append("(\n)\na\n~");
+        return sb.toString();
+    }
+}
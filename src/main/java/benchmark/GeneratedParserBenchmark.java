@@ -0,0 +1,128 @@
+package benchmark;
+
+import dk.DK1;
+import dk.ParseTable;
+import dk.ParserGenerator;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Compares the parsers generated by ‘ParserGenerator’ with the ‘ParseTable’ they were generated from, at both grammar levels.
+// The generated source is compiled with the system Java compiler into a temporary directory and loaded from there.
+// Startup is the time to build the automaton and compile its tables, against the time to load and initialize the generated class.
+// Both parsers must make identical trees for the test programs of ‘Main’, with and without collapsed unit chains.
+public class GeneratedParserBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // The test programs of ‘Main’.
+    private static final String[] PROGRAMS = {
+            "bool benjamin; bool c; int main(){benjamin=(bool)c||false;return 1}~",
+            "char c; int main(){c=t; return 1}~",
+            "int x; int main(){x=-14; return 1}~",
+            "int x; int main(){x=2; if true {x=4} else {x=9};return 3}~",
+            "typedef int[6] arr; arr a;int main(){a[0]=5;return 1}~",
+    };
+
+    private static final int STATEMENTS = 1000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Throwable {
+        Context.DEBUG = false;
+
+        Path directory = Files.createTempDirectory("generated");
+        try {
+            System.out.println("level      source(KB)  automaton+tables(ms)  class init(ms)  table parse(ms)  generated parse(ms)");
+            for (Grammar.Level level : Grammar.Level.values()) {
+                report(level, directory);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static void report(Grammar.Level level, Path directory) throws Throwable {
+        Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+
+        long begin = System.nanoTime();
+        ParseTable table = new DK1(g).getParseTable();
+        long built = System.nanoTime() - begin;
+
+        String className = "generated." + level.name().charAt(0) + level.name().substring(1).toLowerCase() + "Parser";
+        ParserGenerator generator = new ParserGenerator(table, className);
+        Path file = generator.write(directory);
+        compile(file, directory);
+
+        begin = System.nanoTime();
+        MethodHandle parse;
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, GeneratedParserBenchmark.class.getClassLoader())) {
+            Class<?> parserClass = Class.forName(className, true, loader);
+            Object parser = parserClass.getConstructor(Grammar.class).newInstance(g);
+            parse = MethodHandles.lookup().findVirtual(parserClass, "parse", MethodType.methodType(DTE.class, ArrayList.class, boolean.class)).bindTo(parser);
+        }
+        long loaded = System.nanoTime() - begin;
+
+        for (String program : PROGRAMS) {
+            ArrayList<Token> tokens = g.tokenize(program);
+            for (boolean collapseUnitChains : new boolean[]{true, false}) {
+                String expected = table.parse(tokens, collapseUnitChains).toString();
+                String actual = ((DTE) parse.invoke(tokens, collapseUnitChains)).toString();
+                if (!expected.equals(actual)) {
+                    throw new IllegalStateException("The generated parser makes another tree for \"" + program + "\" at level " + level);
+                }
+            }
+        }
+
+        StringBuilder program = new StringBuilder("int x; int main(){x = 0");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x+1*(x-2)");
+        }
+        program.append("; return x}~");
+        ArrayList<Token> tokens = g.tokenize(program.toString());
+
+        long bestTable = Long.MAX_VALUE;
+        long bestGenerated = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            begin = System.nanoTime();
+            table.parse(tokens);
+            bestTable = Math.min(bestTable, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            parse.invoke(tokens, true);
+            bestGenerated = Math.min(bestGenerated, System.nanoTime() - begin);
+        }
+
+        System.out.printf("%-9s  %10d  %20.1f  %14.1f  %15.1f  %19.1f%n", level, Files.size(file) / 1024,
+                built / 1e6, loaded / 1e6, bestTable / 1e6, bestGenerated / 1e6);
+    }
+
+    // Compiles the generated source against the classes of this program.
+    private static void compile(Path file, Path directory) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available, run the benchmark on a JDK");
+        }
+        int status = compiler.run(null, null, null, "-encoding", "UTF-8", "-cp", System.getProperty("java.class.path"), "-d", directory.toString(), file.toString());
+        if (status != 0) {
+            throw new IllegalStateException("The generated parser doesn't compile: " + file);
+        }
+    }
+}
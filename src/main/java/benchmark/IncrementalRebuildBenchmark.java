@@ -0,0 +1,101 @@
+package benchmark;
+
+import dk.DK1;
+import dk.IncrementalDK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import util.Context;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Measures the rebuild of the DK1 automaton after small edits of 'Grammar.txt', from scratch and with ‘IncrementalDK1’, at both grammar levels.
+// Every edit replaces one line of the grammar; the edited grammar is written to a temporary file. The parse tables of both rebuilds must be identical.
+public class IncrementalRebuildBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // The edits: the start of the line to replace, and its replacement.
+    private static final String[][] EDITS = {
+            {"<TyD> -> ", "<TyD> -> typedef <TE> <Na>"},
+            {"<TE> -> ", "<TE> -> <Ty>[<DiS>] | <Ty>' | struct {<VaDS>} | <Ty>[]"},
+            {"<rSt> -> ", "<rSt> -> return <E> | return <BE> | return <CC> | return <id>=<E>"},
+            {"<BC> -> ", "<BC> -> true | false | null"},
+            {"<F> -> ", "<F> -> <id> | -<F> | (<E>) | <C> | <id>'"},
+    };
+
+    // Number of measured rebuilds per edit. The best time is reported, after one warm-up rebuild.
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        List<String> lines = Files.readAllLines(Path.of(GRAMMAR_FILE_PATH));
+        System.out.println("level      edited     changed  states  reused  full(ms)  incremental(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            DK1 previous = new DK1(new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level));
+
+            for (String[] edit : EDITS) {
+                List<String> editedLines = new ArrayList<>();
+                for (String line : lines) {
+                    editedLines.add(line.startsWith(edit[0]) ? edit[1] : line);
+                }
+                Path edited = Files.createTempFile("Grammar", ".txt");
+                try {
+                    Files.write(edited, editedLines);
+                    Grammar g = new Grammar(edited.toString(), TERMINALS_FILE_PATH, level);
+                    report(level, edit[0].replace(" -> ", ""), previous, g);
+                } finally {
+                    Files.delete(edited);
+                }
+            }
+        }
+    }
+
+    private static void report(Grammar.Level level, String name, DK1 previous, Grammar g) {
+        new DK1(g);
+        new IncrementalDK1(previous, g);
+
+        long bestFull = Long.MAX_VALUE;
+        DK1 full = null;
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            full = new DK1(g);
+            bestFull = Math.min(bestFull, System.nanoTime() - begin);
+        }
+
+        long bestIncremental = Long.MAX_VALUE;
+        IncrementalDK1 incremental = null;
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            incremental = new IncrementalDK1(previous, g);
+            bestIncremental = Math.min(bestIncremental, System.nanoTime() - begin);
+        }
+
+        checkIdentical(full.getParseTable(), incremental.getAutomaton().getParseTable());
+        System.out.printf("%-9s  %-9s  %7d  %6d  %6d  %8.1f  %15.1f%n", level, name, incremental.getChangedNonterminals().size(),
+                full.getStates().size(), incremental.getReusedStates(), bestFull / 1e6, bestIncremental / 1e6);
+    }
+
+    private static void checkIdentical(ParseTable expected, ParseTable actual) {
+        if (expected.stateCount() != actual.stateCount()) {
+            throw new IllegalStateException("State counts differ: " + expected.stateCount() + " and " + actual.stateCount());
+        }
+        for (int state = 0; state < expected.stateCount(); state++) {
+            for (int terminal = 0; terminal <= expected.getTerminals().length; terminal++) {
+                if (expected.action(state, terminal) != actual.action(state, terminal)) {
+                    throw new IllegalStateException("ACTION differs in state " + state + " on terminal " + terminal);
+                }
+            }
+            for (int nonterminal = 0; nonterminal < expected.getNonterminals().length; nonterminal++) {
+                if (expected.goTo(state, nonterminal) != actual.goTo(state, nonterminal)) {
+                    throw new IllegalStateException("GOTO differs in state " + state + " on nonterminal " + nonterminal);
+                }
+            }
+        }
+    }
+}
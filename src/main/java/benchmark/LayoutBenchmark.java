@@ -0,0 +1,99 @@
+package benchmark;
+
+import dk.DK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+// Compares parse trees built with and without layout leaves, for both grammar levels: the number of nodes, the parse time and the time of a full walk
+// by ‘DTE.getFirstSon’ and ‘DTE.getBrother’, as the semantic passes navigate. The trees must read the same once the whitespace leaves are removed,
+// and every node must span the same text.
+public class LayoutBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    private static final int STATEMENTS = 2000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        StringBuilder program = new StringBuilder("int x; int y; int main(){x = 0");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x + y*(x-2); if x>100 {y = -y} else {y = y+1}; while y>0 {y = y-1}");
+        }
+        program.append("; return x}~");
+
+        System.out.println("level      layout   nodes  parse(ms)  walk(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ParseTable table = new DK1(g).getParseTable();
+            ArrayList<Token> tokens = g.tokenize(program.toString());
+
+            DTE kept = table.parse(tokens, true, false);
+            DTE dropped = table.parse(tokens, true, true);
+            if (!shape(kept).equals(shape(dropped)) || !kept.getBorderWord().equals(dropped.getBorderWord())) {
+                throw new IllegalStateException("Another tree without layout at level " + level);
+            }
+
+            for (boolean dropLayout : new boolean[]{false, true}) {
+                long bestParse = Long.MAX_VALUE;
+                long bestWalk = Long.MAX_VALUE;
+                long nodes = 0;
+                for (int i = 0; i < ROUNDS; i++) {
+                    long begin = System.nanoTime();
+                    DTE tree = table.parse(tokens, true, dropLayout);
+                    long parsed = System.nanoTime();
+                    nodes = walk(tree);
+                    long walked = System.nanoTime();
+                    bestParse = Math.min(bestParse, parsed - begin);
+                    bestWalk = Math.min(bestWalk, walked - parsed);
+                }
+                System.out.printf("%-9s  %-6s  %6d  %9.1f  %8.1f%n", level, dropLayout ? "drop" : "keep", nodes, bestParse / 1e6, bestWalk / 1e6);
+            }
+        }
+    }
+
+    // Lists the label and text span of every node in preorder, with the number of its sons, leaving out the space leaves.
+    private static String shape(DTE root) {
+        StringBuilder sb = new StringBuilder();
+        ArrayDeque<DTE> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DTE dte = stack.pop();
+            ArrayList<DTE> sons = new ArrayList<>();
+            for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+                if (!son.isType(" ")) sons.add(son);
+            }
+            sb.append(dte.labelContent()).append(' ').append(sons.size()).append(' ').append(dte.getStart()).append(' ').append(dte.getEnd()).append('\n');
+            for (int i = sons.size() - 1; i >= 0; i--) {
+                stack.push(sons.get(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Visits every node of the tree but the space leaves that ‘DTE.getBrother’ skips, expanding collapsed unit chains.
+    // Returns the number of nodes of the tree, counting the sons of every visited node as they are stored.
+    private static long walk(DTE root) {
+        long result = 1;
+        ArrayDeque<DTE> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DTE dte = stack.pop();
+            DTE first = dte.getFirstSon();
+            if (first != null) result += first.getSiblingCount();
+            for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+                stack.push(son);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package benchmark;
+
+import dk.ConflictAnalyzer;
+import dk.DK1;
+import dk.LALR1;
+import dk.ParseTable;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Compares the layered expression grammar of 'Grammar.txt' (<E>, <T>, <F>) with a flat one whose binary operators are ordered by precedence declarations:
+//   <E> -> <F> | <E>*<E> | <E>/<E> | <E>+<E> | <E>-<E>
+//   %left + -
+//   %left * /
+// The flat grammar is written to a temporary file, the rest of 'Grammar.txt' is kept. It is also built without the declarations, to show the conflicts they resolve.
+// Both grammars must group every expression of the program the same way, which is checked on the fully parenthesized programs.
+public class PrecedenceBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    private static final int STATEMENTS = 1000;
+    private static final int ROUNDS = 20;
+
+    private static final Set<String> OPERATORS = Set.of("+", "-", "*", "/");
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        List<String> lines = Files.readAllLines(Path.of(GRAMMAR_FILE_PATH));
+        List<String> flatLines = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith("<T> -> ")) continue;
+            if (line.startsWith("<E> -> ")) line = "<E> -> <F> | <E>*<E> | <E>/<E> | <E>+<E> | <E>-<E>";
+            flatLines.add(line);
+        }
+        Path undeclared = Files.createTempFile("Grammar", ".txt");
+        Files.write(undeclared, flatLines);
+        flatLines.add("%left + -");
+        flatLines.add("%left * /");
+        Path flat = Files.createTempFile("Grammar", ".txt");
+        Files.write(flat, flatLines);
+
+        StringBuilder program = new StringBuilder("int x; int main(){x = 0");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = a-b-c*d/e+-f*(g-h)/2-x");
+        }
+        program.append("; return x}~");
+
+        try {
+            System.out.println("level      grammar     LR(1) states  LALR(1) states  conflicts  expression nodes  expression depth  parse(ms)");
+            for (Grammar.Level level : Grammar.Level.values()) {
+                String layeredProgram = report(level, "layered", GRAMMAR_FILE_PATH, program.toString());
+                report(level, "undeclared", undeclared.toString(), null);
+                String flatProgram = report(level, "flat", flat.toString(), program.toString());
+                if (!layeredProgram.equals(flatProgram)) {
+                    throw new IllegalStateException("The flat grammar groups the expressions differently at level " + level);
+                }
+            }
+        } finally {
+            Files.delete(undeclared);
+            Files.delete(flat);
+        }
+    }
+
+    // Prints the automaton sizes and conflicts of the grammar and, if a program is given, the shape of its tree and the parse time.
+    // Returns the fully parenthesized program, or null.
+    private static String report(Grammar.Level level, String name, String grammarFilePath, String program) throws IOException {
+        Grammar g = new Grammar(grammarFilePath, TERMINALS_FILE_PATH, level);
+        DK1 dk1 = new DK1(g);
+        int lalrStates = new LALR1(g).getAutomaton().getStates().size();
+        int conflicts = new ConflictAnalyzer(dk1).getConflicts().size();
+
+        if (program == null) {
+            System.out.printf("%-9s  %-10s  %12d  %14d  %9d%n", level, name, dk1.getStates().size(), lalrStates, conflicts);
+            return null;
+        }
+
+        ParseTable table = dk1.getParseTable();
+        ArrayList<Token> tokens = g.tokenize(program);
+        DTE tree = table.parse(tokens, false);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long begin = System.nanoTime();
+            table.parse(tokens, false);
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+
+        int[] expressions = measureExpressions(tree);
+        System.out.printf("%-9s  %-10s  %12d  %14d  %9d  %16d  %16d  %9.1f%n", level, name, dk1.getStates().size(), lalrStates, conflicts,
+                expressions[0], expressions[1], best / 1e6);
+
+        StringBuilder sb = new StringBuilder();
+        parenthesize(tree, sb);
+        return sb.toString();
+    }
+
+    // Returns the number of nodes of all outermost <E> subtrees, and the depth of the deepest one.
+    private static int[] measureExpressions(DTE dte) {
+        if (dte.isType("<E>")) return new int[]{countNodes(dte), depth(dte)};
+        int[] result = {0, 0};
+        for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+            int[] expressions = measureExpressions(son);
+            result[0] += expressions[0];
+            result[1] = Math.max(result[1], expressions[1]);
+        }
+        return result;
+    }
+
+    private static int countNodes(DTE dte) {
+        int result = 1;
+        for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+            result += countNodes(son);
+        }
+        return result;
+    }
+
+    private static int depth(DTE dte) {
+        int result = 0;
+        for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+            result = Math.max(result, depth(son));
+        }
+        return result + 1;
+    }
+
+    // Appends the border word of the tree, with parentheses around every binary and unary operation.
+    private static void parenthesize(DTE dte, StringBuilder sb) {
+        DTE first = dte.getFirstSon();
+        if (first == null) {
+            sb.append(dte.getBorderWord());
+            return;
+        }
+        DTE second = first.getBrother();
+        boolean binary = second != null && second.getBrother() != null && !first.getLabel().isTerminal() && OPERATORS.contains(second.labelContent());
+        boolean unary = second != null && second.getBrother() == null && first.isType("-");
+        if (binary || unary) sb.append('(');
+        for (DTE son = first; son != null; son = son.getBrother()) {
+            parenthesize(son, sb);
+        }
+        if (binary || unary) sb.append(')');
+    }
+}
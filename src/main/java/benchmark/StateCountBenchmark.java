@@ -0,0 +1,73 @@
+package benchmark;
+
+import dk.ConflictAnalyzer;
+import dk.DK1;
+import dk.LALR1;
+import dk.PagerLR1;
+import grammar.Grammar;
+import util.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+// Compares the three automaton constructions: canonical LR(1) of ‘DK1’, LALR(1) of ‘LALR1’ and minimal LR(1) of ‘PagerLR1’.
+// For every construction it prints the number of states, the number of conflicts and the best construction time.
+// 'Grammar.txt' is measured at both levels. The last grammar is LR(1) but not LALR(1): merging its states by core makes a reduce/reduce conflict.
+public class StateCountBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // The textbook grammar that is LR(1) but not LALR(1).
+    private static final String NOT_LALR_GRAMMAR = "<S> -> a<A>d | b<B>d | a<B>e | b<A>e\n<A> -> c\n<B> -> c";
+    private static final String NOT_LALR_TERMINALS = "a\nb\nc\nd\ne";
+
+    // Number of measured constructions per automaton. The best time is reported, after one warm-up construction.
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        System.out.printf("%-9s", "grammar");
+        for (String construction : new String[]{"LR(1)", "LALR(1)", "Pager"}) {
+            System.out.printf("  %14s  %9s  %8s", construction + " states", "conflicts", "time(ms)");
+        }
+        System.out.println();
+        for (Grammar.Level level : Grammar.Level.values()) {
+            report(level.name(), new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level));
+        }
+
+        File grammarFile = File.createTempFile("grammar", ".txt");
+        File terminalsFile = File.createTempFile("terminals", ".txt");
+        grammarFile.deleteOnExit();
+        terminalsFile.deleteOnExit();
+        Files.writeString(grammarFile.toPath(), NOT_LALR_GRAMMAR);
+        Files.writeString(terminalsFile.toPath(), NOT_LALR_TERMINALS);
+        report("not LALR", new Grammar(grammarFile.getPath(), terminalsFile.getPath()));
+    }
+
+    private static void report(String name, Grammar g) {
+        System.out.printf("%-9s%s%s%s%n", name,
+                measure(() -> new DK1(g)),
+                measure(() -> new LALR1(g).getAutomaton()),
+                measure(() -> new PagerLR1(g).getAutomaton()));
+    }
+
+    // Builds the automaton several times and returns its columns: states, conflicts and the best construction time.
+    private static String measure(Supplier<DK1> construction) {
+        construction.get();
+
+        long best = Long.MAX_VALUE;
+        DK1 dk1 = null;
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            dk1 = construction.get();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+
+        int conflicts = new ConflictAnalyzer(dk1).getConflicts().size();
+        return String.format("  %14d  %9d  %8.1f", dk1.getStates().size(), conflicts, best / 1e6);
+    }
+}
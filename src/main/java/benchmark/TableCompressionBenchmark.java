@@ -0,0 +1,53 @@
+package benchmark;
+
+import dk.CompressedParseTable;
+import dk.DK1;
+import dk.LALR1;
+import dk.ParseTable;
+import grammar.Grammar;
+import util.Context;
+
+import java.io.IOException;
+
+// Reports how much ‘CompressedParseTable’ shrinks the parse tables of 'Grammar.txt', for both grammar levels and both automaton constructions.
+// Every entry of the dense tables that isn't an error is looked up in the compressed tables as well, and must be equal.
+public class TableCompressionBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        System.out.println("level      automaton  states  dense(KB)  compressed(KB)  ratio  build(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            report(level, "LR(1)", new DK1(g).getParseTable());
+            report(level, "LALR(1)", new LALR1(g).getAutomaton().getParseTable());
+        }
+    }
+
+    private static void report(Grammar.Level level, String automaton, ParseTable table) {
+        long begin = System.nanoTime();
+        CompressedParseTable compressed = new CompressedParseTable(table);
+        long time = System.nanoTime() - begin;
+
+        for (int state = 0; state < table.stateCount(); state++) {
+            for (int terminal = 0; terminal <= table.getTerminals().length; terminal++) {
+                int entry = table.action(state, terminal);
+                if (entry != ParseTable.ERROR && entry != compressed.action(state, terminal)) {
+                    throw new IllegalStateException("ACTION differs in state " + state + " on terminal " + terminal);
+                }
+            }
+            for (int nonterminal = 0; nonterminal < table.getNonterminals().length; nonterminal++) {
+                if (table.goTo(state, nonterminal) != compressed.goTo(state, nonterminal)) {
+                    throw new IllegalStateException("GOTO differs in state " + state + " on nonterminal " + nonterminal);
+                }
+            }
+        }
+
+        System.out.printf("%-9s  %-9s  %6d  %9.1f  %14.1f  %5.1f  %9.1f%n", level, automaton, table.stateCount(),
+                compressed.getDenseSize() * 4 / 1024.0, compressed.getCompressedSize() * 4 / 1024.0,
+                (double) compressed.getDenseSize() / compressed.getCompressedSize(), time / 1e6);
+    }
+}
@@ -0,0 +1,131 @@
+package benchmark;
+
+import dk.CompressedParseTable;
+import dk.DK1;
+import dk.Item;
+import dk.ParseTable;
+import grammar.Grammar;
+import grammar.Symbol;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Checks the trees built by ‘TreeBuilder’ and measures how the parse time grows with the input, for both grammar levels.
+// The reference trees are built the way the parsers used to: by rescanning the sentential form for the handle and copying the whole forest on every reduction.
+// Every engine, and both tables with and without collapsed unit chains, must print the same trees for the test programs of ‘Main’.
+public class TreeBuilderBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // The test programs of ‘Main’.
+    private static final String[] PROGRAMS = {
+            "bool benjamin; bool c; int main(){benjamin=(bool)c||false;return 1}~",
+            "char c; int main(){c=t; return 1}~",
+            "int x; int main(){x=-14; return 1}~",
+            "int x; int main(){x=2; if true {x=4} else {x=9};return 3}~",
+            "typedef int[6] arr; arr a;int main(){a[0]=5;return 1}~",
+    };
+
+    private static final int[] STATEMENTS = {1000, 2000, 4000, 8000};
+    private static final int ROUNDS = 10;
+
+    // A node of a reference tree.
+    private record Node(Symbol label, String text, List<Node> sons) {
+
+        // Prints the node as ‘DTE.toString’ does.
+        @Override
+        public String toString() {
+            if (label.isTerminal()) return text;
+            StringBuilder sb = new StringBuilder(label.getContent());
+            for (Node son : sons) {
+                sb.append("\n\t|- ").append(son);
+            }
+            return sb.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            DK1 dk1 = new DK1(g);
+            ParseTable table = dk1.getParseTable();
+            CompressedParseTable compressed = new CompressedParseTable(table);
+
+            for (String program : PROGRAMS) {
+                ArrayList<Token> tokens = g.tokenize(program);
+                String expected = reference(dk1, tokens).toString();
+                List<DTE> trees = new ArrayList<>();
+                for (DK1.Engine engine : DK1.Engine.values()) {
+                    trees.add(dk1.parseString(program, engine));
+                }
+                for (boolean collapseUnitChains : new boolean[]{true, false}) {
+                    trees.add(table.parse(tokens, collapseUnitChains));
+                    trees.add(compressed.parse(tokens, collapseUnitChains));
+                }
+                for (DTE tree : trees) {
+                    if (!expected.equals(tree.toString())) {
+                        throw new IllegalStateException("Another tree for \"" + program + "\" at level " + level);
+                    }
+                }
+            }
+            System.out.println(level + ": trees of " + PROGRAMS.length + " programs identical for all parsers");
+        }
+
+        System.out.println("level      statements  tokens  parse(ms)  per token(ns)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ParseTable table = new DK1(g).getParseTable();
+            for (int statements : STATEMENTS) {
+                StringBuilder program = new StringBuilder("int x; int y; int main(){x = 0");
+                for (int i = 0; i < statements; i++) {
+                    program.append("; x = x + y*(x-2); if x>100 {y = -y}");
+                }
+                program.append("; return x}~");
+                ArrayList<Token> tokens = g.tokenize(program.toString());
+
+                for (int i = 0; i < ROUNDS; i++) {
+                    table.parse(tokens);
+                }
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < ROUNDS; i++) {
+                    long begin = System.nanoTime();
+                    table.parse(tokens);
+                    best = Math.min(best, System.nanoTime() - begin);
+                }
+                System.out.printf("%-9s  %10d  %6d  %9.1f  %13.1f%n", level, statements, tokens.size(), best / 1e6, (double) best / tokens.size());
+            }
+        }
+    }
+
+    // Builds the tree of the given tokens by rescanning the sentential form for the handle, copying the forest on every reduction.
+    private static Node reference(DK1 dk1, ArrayList<Token> tokens) {
+        ArrayList<Symbol> validStringArray = new ArrayList<>();
+        List<Node> forest = new ArrayList<>();
+        for (Token token : tokens) {
+            validStringArray.add(token.kind());
+            forest.add(new Node(token.kind(), token.text(), List.of()));
+        }
+
+        Symbol start = dk1.getGrammar().getStart();
+        while (validStringArray.size() > 1 || !validStringArray.get(0).equals(start)) {
+            Item handle = dk1.findHandle(validStringArray);
+            int rightIndex = handle.getDotIndex();
+            int leftIndex = rightIndex - handle.getProduction().getRight().size();
+
+            List<Node> reduced = new ArrayList<>(forest.subList(0, leftIndex));
+            reduced.add(new Node(handle.getProduction().getLeft(), null, List.copyOf(forest.subList(leftIndex, rightIndex))));
+            reduced.addAll(forest.subList(rightIndex, forest.size()));
+            forest = reduced;
+
+            validStringArray = dk1.makeReduction(validStringArray, handle.getProduction(), handle.getDotIndex());
+        }
+        return forest.get(0);
+    }
+}
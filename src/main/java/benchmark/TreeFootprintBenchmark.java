@@ -0,0 +1,71 @@
+package benchmark;
+
+import dk.DK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+// Measures the memory of the derivation trees made by the table parser, for both grammar levels: the bytes allocated by a parse,
+// and the heap that a finished tree keeps alive, averaged over several trees. Allocations are counted by the JVM per thread, which HotSpot supports.
+public class TreeFootprintBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    private static final int STATEMENTS = 2000;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        StringBuilder program = new StringBuilder("int x; int y; int main(){x = 0");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x + y*(x-2); if x>100 {y = -y}");
+        }
+        program.append("; return x}~");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        System.out.println("level      allocated(MB)  retained(MB)  parse(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ParseTable table = new DK1(g).getParseTable();
+            ArrayList<Token> tokens = g.tokenize(program.toString());
+            table.parse(tokens);
+
+            long allocated = Long.MAX_VALUE;
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < ROUNDS; i++) {
+                long bytes = threads.getCurrentThreadAllocatedBytes();
+                long begin = System.nanoTime();
+                table.parse(tokens);
+                best = Math.min(best, System.nanoTime() - begin);
+                allocated = Math.min(allocated, threads.getCurrentThreadAllocatedBytes() - bytes);
+            }
+
+            long before = usedHeap();
+            DTE[] trees = new DTE[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                trees[i] = table.parse(tokens);
+            }
+            long retained = (usedHeap() - before) / ROUNDS;
+
+            System.out.printf("%-9s  %13.1f  %12.1f  %9.1f%n", level, allocated / 1e6, retained / 1e6, best / 1e6);
+            Reference.reachabilityFence(trees);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import dk.CompressedParseTable;
+import dk.DK1;
+import dk.ParseTable;
+import grammar.Grammar;
+import lexer.Token;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+// Measures how much collapsing unit chains saves when parsing with the tables of 'Grammar.txt', for both grammar levels.
+// The trees parsed with and without collapsing are printed, which expands every collapsed chain, and must be equal.
+public class UnitChainBenchmark {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    private static final int STATEMENTS = 2000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws IOException {
+        Context.DEBUG = false;
+
+        StringBuilder program = new StringBuilder("int x; int y; int main(){x = 0; y = 1");
+        for (int i = 0; i < STATEMENTS; i++) {
+            program.append("; x = x + y*(x-2); if x>100 {y = -y}");
+        }
+        program.append("; return x}~");
+
+        System.out.println("level      table       nodes  unit nodes  explicit(ms)  collapsed(ms)");
+        for (Grammar.Level level : Grammar.Level.values()) {
+            Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+            ArrayList<Token> tokens = g.tokenize(program.toString());
+            ParseTable table = new DK1(g).getParseTable();
+            CompressedParseTable compressed = new CompressedParseTable(table);
+
+            DTE explicit = table.parse(tokens, false);
+            for (DTE collapsed : new DTE[]{table.parse(tokens, true), compressed.parse(tokens, true)}) {
+                if (!explicit.toString().equals(collapsed.toString())) {
+                    throw new IllegalStateException("Collapsed tree differs at level " + level);
+                }
+            }
+
+            int[] counts = count(explicit);
+            System.out.printf("%-9s  %-10s  %6d  %10d  %12.1f  %13.1f%n", level, "dense", counts[0], counts[1],
+                    time(() -> table.parse(tokens, false)), time(() -> table.parse(tokens, true)));
+            System.out.printf("%-9s  %-10s  %6d  %10d  %12.1f  %13.1f%n", level, "compressed", counts[0], counts[1],
+                    time(() -> compressed.parse(tokens, false)), time(() -> compressed.parse(tokens, true)));
+        }
+    }
+
+    // Returns the number of nodes of the tree, and the number of those made by a unit production.
+    // The statement list makes the tree a few thousand levels deep, so it is walked with an explicit stack.
+    private static int[] count(DTE root) {
+        int[] result = {0, 0};
+        ArrayDeque<DTE> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            DTE dte = stack.pop();
+            result[0]++;
+            DTE son = dte.getFirstSon();
+            if (son != null && son.getSiblingCount() == 1 && !son.getLabel().isTerminal()) {
+                result[1]++;
+            }
+            for (; son != null; son = son.getBrother()) {
+                stack.push(son);
+            }
+        }
+        return result;
+    }
+
+    // Returns the best time of a number of rounds, in ms.
+    private static double time(Runnable parse) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long begin = System.nanoTime();
+            parse.run();
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        return best / 1e6;
+    }
+}
@@ -1,5 +1,13 @@
 package codegen;
 
+import ast.Body;
+import ast.Node;
+import ast.Node.Assign;
+import ast.Node.Call;
+import ast.Node.If;
+import ast.Node.New;
+import ast.Node.Return;
+import ast.Node.While;
 import config.Configuration;
 import config.FunctionCall;
 import grammar.Grammar;
@@ -7,20 +15,16 @@ import model.Fun;
 import model.VarReg;
 import model.Variable;
 import table.FunctionTable;
-import tree.DTE;
 
 import java.util.*;
 
-import static codegen.ConstantEvaluator.evaluateCharacterConstant;
-import static codegen.ExpressionEvaluator.evaluateBooleanExpression;
-import static codegen.ExpressionEvaluator.evaluateExpression;
+import static codegen.ExpressionEvaluator.evaluate;
 import static codegen.IdEvaluator.evaluateId;
 import static codegen.MemoryHelper.increaseHeapPointer;
 import static codegen.MemoryHelper.increaseStackPointer;
 import static util.Context.*;
 import static util.Logger.log;
 import static util.TypeUtils.checkSameTypes;
-import static util.TypeUtils.checkTokenType;
 
 public class CodeGenerator {
     private static CodeGenerator INSTANCE = null;
@@ -77,8 +81,7 @@ public class CodeGenerator {
     }
 
     private void generateCodeForFunctionCall(FunctionCall call) throws Exception {
-        DTE body = call.getFunction().getBody();
-        checkTokenType(body, "<body>");
+        Body body = call.getFunction().getLoweredBody();
 
         // all calls, except `main`, will store return address on address SPT - (size($f)+4), from register 31
         // function is not main, if result destination is defined
@@ -89,110 +92,79 @@ public class CodeGenerator {
             Configuration.getInstance().freeRegister(reg);
         }
 
-        if (body.getFirstSon().isType("<rSt>")) {
-            generateRSt(body.getFirstSon(), call);
-        } else {
-            generateStS(body.getFirstSon());
-            generateRSt(body.getNthSon(3), call);
-        }
+        generateStS(body.statements());
+        generateRSt(body.result(), call);
     }
 
-    private void generateStS(DTE sts) throws Exception {
-        checkTokenType(sts, "<StS>");
-
-        List<DTE> statements = sts.getFlattenedSequence();
+    private void generateStS(List<Node> statements) throws Exception {
         int counter = 0;
-        for (DTE statement : statements) {
-            log("Statement #" + counter++ + ": " + statement.getBorderWord());
+        for (Node statement : statements) {
+            log("Statement #" + counter++);
+            log(statement);
             generateSt(statement);
 
             Configuration.getInstance().freeAllRegisters(retainedRegister);
         }
     }
 
-    private void generateSt(DTE st) throws Exception {
-        checkTokenType(st, "<St>");
-
-        // <id> = <E> | <id> = <BE> | <id> = <CC> | <id> = <Na>(<PaS>?) | <id> = new <Na>*
-        if (st.getNthSon(2).isType("=")) {
-            DTE id = st.getFirstSon();
-            DTE exp = st.getNthSon(3);
-
-            log("Assignment of form <id> = <E> -> \n id: " + id.getBorderWord() + "\n E: " + exp.getBorderWord());
-            generateAssignment(id, exp);
-        }
-
-        // while <BE> { <StS> }
-        else if (st.getFirstSon().isType("while")) {
-            generateLoop(st.getFirstSon());
-        }
-
-        // if <BE> { <StS> } | if <BE> { <StS> } else { <StS> }
-        else if (st.getFirstSon().isType("if")) {
-            generateIfStatement(st.getFirstSon());
-        }
-
-        // Invalid statement | Unhandled case
-        else {
-            throw new IllegalArgumentException("Grammar error on \"" + st.getBorderWord() + "\"");
+    private void generateSt(Node st) throws Exception {
+        switch (st.kind()) {
+            case ASSIGN -> generateAssignment((Assign) st);
+            case NEW -> generateNew((New) st);
+            case CALL -> generateCall((Call) st);
+            case WHILE -> generateLoop((While) st);
+            case IF -> generateIfStatement((If) st);
+            // Invalid statement | Unhandled case
+            default -> throw new IllegalArgumentException("Expected statement, got " + st.kind());
         }
     }
 
-    public void generateAssignment(DTE id, DTE value) throws Exception {
-        // <id> = value
-        // E -> T -> F -> C -> DiS -> Di -> 1
-        VarReg varRegId = evaluateId(id, true);
-        VarReg varRegValue;
-
-        // case split for type of value
-        if (value.isType("<E>")) {
-            varRegValue = evaluateExpression(value);
-        } else if (value.isType("<BE>")) {
-            varRegValue = evaluateBooleanExpression(value);
-        } else if (value.isType("<CC>")) {
-            varRegValue = evaluateCharacterConstant(value);
-        } else if (value.isType("new")) {
-            addInstruction(Instruction.sw(HPT, varRegId.register, 0));
-
-            int varSize = varRegId.type.size;
-            increaseHeapPointer(varSize);
+    // <id> = <E> | <id> = <BE> | <id> = <CC>
+    public void generateAssignment(Assign assign) throws Exception {
+        VarReg varRegId = evaluateId(assign.target(), true);
+        VarReg varRegValue = evaluate(assign.value());
 
-            return;
-        } else { // id = Na() | id = Na(PaS) left
-            retainedRegister = varRegId.register;
-            checkTokenType(value, "<Na>");
+        checkSameTypes(varRegId.type, varRegValue.type);
 
-            String functionName = value.getBorderWord();
-            log("function call: " + functionName);
+        String instr = Instruction.sw(varRegValue.register, varRegId.register, 0);
+        addInstruction(instr);
+        Configuration.getInstance().freeRegister(varRegValue.register);
 
-            Fun function = FunctionTable.getInstance().getFunction(functionName);
-            increaseStackPointer(function.getSize());
+        Configuration.getInstance().freeRegister(varRegValue.register);
+    }
 
+    // <id> = new <Na>'
+    public void generateNew(New assign) throws Exception {
+        VarReg varRegId = evaluateId(assign.target(), true);
+        addInstruction(Instruction.sw(HPT, varRegId.register, 0));
 
-            if (value.getNthBrother(2).isType("<PaS>")) {
-                log("found parameters: " + value.getNthBrother(2).getBorderWord());
-                setParameters(function, value.getNthBrother(2));
-            }
+        int varSize = varRegId.type.size;
+        increaseHeapPointer(varSize);
+    }
 
-            initializeLocalVariables(function);
-            addInstruction(Instruction.jal("_" + functionName));
+    // <id> = <Na>(<PaS>) | <id> = <Na>()
+    public void generateCall(Call assign) throws Exception {
+        VarReg varRegId = evaluateId(assign.target(), true);
+        retainedRegister = varRegId.register;
 
-            if (!functionInstructions.containsKey(functionName)) {
-                functionInstructions.put(functionName, new LinkedList<>());
-                FunctionCall call = Configuration.getInstance().callFunction(functionName, varRegId);
-                generateCodeForFunctionCall(call);
-            }
+        String functionName = assign.function();
+        log("function call: " + functionName);
 
-            return;
-        }
+        Fun function = FunctionTable.getInstance().getFunction(functionName);
+        increaseStackPointer(function.getSize());
 
-        checkSameTypes(varRegId.type, varRegValue.type);
+        if (!assign.arguments().isEmpty()) {
+            setParameters(function, assign.arguments());
+        }
 
-        String instr = Instruction.sw(varRegValue.register, varRegId.register, 0);
-        addInstruction(instr);
-        Configuration.getInstance().freeRegister(varRegValue.register);
+        initializeLocalVariables(function);
+        addInstruction(Instruction.jal("_" + functionName));
 
-        Configuration.getInstance().freeRegister(varRegValue.register);
+        if (!functionInstructions.containsKey(functionName)) {
+            functionInstructions.put(functionName, new LinkedList<>());
+            FunctionCall call = Configuration.getInstance().callFunction(functionName, varRegId);
+            generateCodeForFunctionCall(call);
+        }
     }
 
     public void printInstructions() {
@@ -229,26 +201,16 @@ public class CodeGenerator {
         return res.toString();
     }
 
-    public void generateLoop(DTE dte) throws Exception {
-        checkTokenType(dte, "while");
-
-        // while <E> { <StS> }
-
-        DTE expressionNode = dte.getBrother();
-        assert expressionNode != null && expressionNode.getBrother() != null;
-
-        DTE bodyNode = dte.getNthBrother(3);
-        assert bodyNode != null;
-
-
+    // while <BE> { <StS> }
+    public void generateLoop(While loop) throws Exception {
         int before = instructionsSize();
-        VarReg expression = evaluateBooleanExpression(expressionNode);
+        VarReg expression = evaluate(loop.condition());
         int expressionCodeSize = instructionsSize() - before;
 
 
         // need to add branch jump of size |code(whileBody)| + 2
         before = instructionsSize();
-        generateStS(bodyNode);
+        generateStS(loop.body());
         int bodySize = instructionsSize() - before;
 
         String instr = Instruction.beqz(expression.register, bodySize + 2);
@@ -259,65 +221,45 @@ public class CodeGenerator {
         addInstruction(Instruction.blez(0, jumpBackSize));
     }
 
-    public void generateIfStatement(DTE dte) throws Exception {
-        checkTokenType(dte, "if");
-
-        if (dte.getSiblingCount() >= 9) {
-            generateIfElseStatement(dte);
+    // if <BE> { <StS> }
+    public void generateIfStatement(If ifStatement) throws Exception {
+        if (ifStatement.otherwise() != null) {
+            generateIfElseStatement(ifStatement);
             return;
         }
 
-        DTE ifConditionNode = dte.getBrother();
-        DTE ifPart = dte.getNthBrother(3);
-
-        VarReg ifCondition = evaluateBooleanExpression(ifConditionNode);
+        VarReg ifCondition = evaluate(ifStatement.condition());
 
         int before = instructionsSize();
-        generateStS(ifPart);
+        generateStS(ifStatement.then());
         int ifPartSize = instructionsSize() - before;
 
         addInstruction(before, Instruction.beqz(ifCondition.register, ifPartSize + 1));
     }
 
-    public void generateIfElseStatement(DTE ifElse) throws Exception {
-        checkTokenType(ifElse, "if");
-        checkTokenType(ifElse.getNthBrother(5), "else");
-
-        DTE ifConditionNode = ifElse.getBrother();
-        DTE ifPart = ifElse.getNthBrother(3);
-        DTE elsePart = ifElse.getNthBrother(7);
-
-        VarReg ifCondition = evaluateBooleanExpression(ifConditionNode);
+    // if <BE> { <StS> } else { <StS> }
+    public void generateIfElseStatement(If ifElse) throws Exception {
+        VarReg ifCondition = evaluate(ifElse.condition());
 
         // need to add branch jump of size |code(ifPart)| + 2
         int before = instructionsSize();
-        generateStS(ifPart);
+        generateStS(ifElse.then());
         int ifPartSize = instructionsSize() - before;
 
         addInstruction(before, Instruction.beqz(ifCondition.register, ifPartSize + 2));
 
         before = instructionsSize();
-        generateStS(elsePart);
+        generateStS(ifElse.otherwise());
         int elsePartSize = instructionsSize() - before;
 
         addInstruction(before, Instruction.beq(0, elsePartSize + 1));
     }
 
-    private void generateRSt(DTE rSt, FunctionCall call) throws Exception {
-        checkTokenType(rSt, "<rSt>");
+    private void generateRSt(Return rSt, FunctionCall call) throws Exception {
         assert call.getResultDestination() != null;
 
-        VarReg expr;
-        DTE node = rSt.getNthSon(2);
-
-        log("return exp: " + node.getBorderWord());
-        if (node.isType("<E>")) {
-            expr = evaluateExpression(node);
-        } else if (node.isType("<BE>")) {
-            expr = evaluateBooleanExpression(node);
-        } else if (node.isType("<CC>")) {
-            expr = evaluateCharacterConstant(node);
-        } else throw new IllegalArgumentException("Grammar error on " + rSt.getBorderWord());
+        log(rSt);
+        VarReg expr = evaluate(rSt.value());
 
 
         // get the result address, decrease stack pointer, and return
@@ -337,8 +279,7 @@ public class CodeGenerator {
         Configuration.getInstance().popStack();
     }
 
-    private void setParameters(Fun function, DTE paS) throws Exception {
-        checkTokenType(paS, "<PaS>");
+    private void setParameters(Fun function, List<Node> arguments) throws Exception {
         List<Map.Entry<String, Variable>> params = function
                 .getMemoryStruct()
                 .getType()
@@ -346,21 +287,11 @@ public class CodeGenerator {
 //                .subList(0, function.getNumParameters());
 
         int index = 0;
-        List<DTE> paSFlattened = paS.getFlattenedSequence();
-        if (paSFlattened.size() != function.getNumParameters()) {
-            throw new IllegalArgumentException("Incorrect number of params! expected: " + function.getNumParameters() + ", got: " + paSFlattened.size());
+        if (arguments.size() != function.getNumParameters()) {
+            throw new IllegalArgumentException("Incorrect number of params! expected: " + function.getNumParameters() + ", got: " + arguments.size());
         }
-        for (DTE pa : paSFlattened) {
-            checkTokenType(pa, "<Pa>");
-            VarReg expr;
-            pa = pa.getFirstSon();
-            if (pa.isType("<E>")) {
-                expr = evaluateExpression(pa);
-            } else if (pa.isType("<BE>")) {
-                expr = evaluateBooleanExpression(pa);
-            } else if (pa.isType("<CC>")) {
-                expr = evaluateCharacterConstant(pa);
-            } else throw new IllegalArgumentException("Grammar error on " + paS.getBorderWord());
+        for (Node argument : arguments) {
+            VarReg expr = evaluate(argument);
 
             Variable parameter = params.get(index).getValue();
 
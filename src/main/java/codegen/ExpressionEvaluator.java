@@ -1,167 +1,66 @@
 package codegen;
 
+import ast.Node;
+import ast.Node.BinOp;
+import ast.Node.Const;
+import ast.Node.IdPath;
+import ast.Node.Neg;
+import ast.Node.Not;
+import ast.Operator;
 import config.Configuration;
 import model.VarReg;
 import model.VarType;
-import tree.DTE;
 
-import static codegen.ConstantEvaluator.evaluateBooleanConstant;
-import static codegen.ConstantEvaluator.evaluateNumberConstant;
+import static codegen.ConstantEvaluator.evaluateConstant;
 import static codegen.IdEvaluator.evaluateId;
 import static util.Logger.log;
 import static util.TypeUtils.checkSameTypes;
-import static util.TypeUtils.checkTokenType;
 
 public class ExpressionEvaluator {
     private static CodeGenerator cg() {
         return CodeGenerator.getInstance();
     }
 
-    public static VarReg evaluateExpression(DTE expression) throws Exception {
-        checkTokenType(expression, "<E>", "<T>", "<F>");
-
-        log("Evaluating expression: " + expression.getBorderWord());
-
-        // any of <E>, <T>, <F> token's derivations has at most 3 children.
-        DTE first;
-        DTE second = null;
-        DTE third = null;
-
-        first = expression.getFirstSon();
-        if (first != null && first.getBrother() != null) {
-            second = first.getBrother();
-        }
-        if (second != null && second.getBrother() != null) {
-            third = second.getBrother();
-        }
-
-        if (third != null) {
-            // e' binOp e'' OR (E)
-
-            // handle (<E>) separately
-            if (first.isType("(")) {
-                return evaluateExpression(second);
+    // Evaluates an arithmetic or boolean expression or a constant into a register.
+    public static VarReg evaluate(Node expression) throws Exception {
+        log(expression);
+
+        return switch (expression.kind()) {
+            case CONST -> evaluateConstant((Const) expression);
+            case ID_PATH -> evaluateId((IdPath) expression, false);
+            case BIN_OP -> evaluateBinaryOperation((BinOp) expression);
+            case NEG -> {
+                VarReg f = evaluate(((Neg) expression).operand());
+                // perform unary minus operation
+                String instr = Instruction.sub(f.register, 0, f.register);
+                cg().addInstruction(instr);
+
+                yield f;
             }
+            case NOT -> {
+                VarReg factor = evaluate(((Not) expression).operand());
 
-            VarReg leftOperand = evaluateExpression(first);
-            VarReg rightOperand = evaluateExpression(third);
-
-            return evaluateBinaryOperation(leftOperand, rightOperand, second);
-        }
-
-        if (second != null) { // only possible case is -F (unary minus on factor)
-            log("Unary minus detected.");
-
-            checkTokenType(first, "-");
-
-            VarReg f = evaluateExpression(second);
-            // perform unary minus operation
-            String instr = Instruction.sub(f.register, 0, f.register);
-            cg().addInstruction(instr);
-
-            return f;
-        }
-
-        if (first != null) { // T | F | id | C
-            checkTokenType(first, "<T>", "<F>", "<id>", "<C>");
+                cg().addInstruction(Instruction.subi(factor.register, factor.register, 1));
+                cg().addInstruction("set lt " + factor.register + " 0");
 
-            if (first.isType("<T>") || first.isType("<F>")) {
-                return evaluateExpression(first);
+                yield factor;
             }
-
-            if (first.isType("<id>")) {
-                return evaluateId(first, false);
-            }
-
-            return evaluateNumberConstant(first);
-        }
-
-        throw new Exception("Grammar error on: " + expression.getBorderWord());
+            default -> throw new IllegalArgumentException("Expected expression, got " + expression.kind());
+        };
     }
 
-    public static VarReg evaluateBooleanExpression(DTE be) throws Exception {
-        checkTokenType(be, "<BE>", "<BT>", "<BF>");
-
-        DTE first;
-        DTE second;
-        DTE third;
-
-        first = be.getFirstSon();
-        assert first != null;
-
-        if (first.isType("(") && first.getBrother().isType("bool")) {
-            first = first.getNthBrother(3);
-            return evaluateId(first, false);
-        }
-
-        if (first.isType("<Atom>")) {
-            return evaluateAtom(first);
-        }
-
-        if (first.isType("<BF>")) {
-            return evaluateBooleanExpression(first);
-        }
-
-        if (first.isType("<BE>")) { // <BE> || <BT>
-            second = first.getBrother();
-            checkTokenType(second, "||");
+    private static VarReg evaluateBinaryOperation(BinOp binOp) throws Exception {
+        VarReg left = evaluate(binOp.left());
+        VarReg right = evaluate(binOp.right());
+        Operator operator = binOp.operator();
 
-            third = second.getBrother();
-            checkTokenType(third, "<BT>");
-
-            VarReg left = evaluateBooleanExpression(first);
-            VarReg right = evaluateBooleanExpression(third);
-
-            String instr = Instruction.or(left.register, left.register, right.register);
-            cg().addInstruction(instr);
-
-            Configuration.getInstance().freeRegister(right.register);
-            return new VarReg(left.register, VarType.BOOL_TYPE);
-        }
-
-        if (first.isType("<BT>")) { // Either <BT> or <BT> && <BF>
-            if (first.getBrother() == null) return evaluateBooleanExpression(first);
-
-            second = first.getBrother();
-            checkTokenType(second, "&&");
-
-            third = second.getBrother();
-            checkTokenType(third, "<BF>");
-
-            VarReg left = evaluateBooleanExpression(first);
-            VarReg right = evaluateBooleanExpression(third);
-
-            String instr = Instruction.and(left.register, left.register, right.register);
-            cg().addInstruction(instr);
-
-            Configuration.getInstance().freeRegister(right.register);
-            return new VarReg(left.register, VarType.BOOL_TYPE);
-        }
-
-        if (first.isType("!")) {
-            second = first.getBrother();
-            checkTokenType(second, "<BF>");
-
-            VarReg factor = evaluateBooleanExpression(second);
-
-
-            cg().addInstruction(Instruction.subi(factor.register, factor.register, 1));
-            cg().addInstruction("set lt " + factor.register + " 0");
-
-            return factor;
+        if (operator.isLogical()) {
+            return evaluateLogicalOperation(left, right, operator);
         }
-
-        if (first.isType("(")) {
-            second = first.getBrother();
-            checkTokenType(second, "<BE>");
-
-            return evaluateBooleanExpression(second);
+        if (operator.isComparison()) {
+            return evaluateComparison(left, right, operator);
         }
 
-        throw new IllegalArgumentException("Grammar error! \"" + be.getBorderWord() + "\"");
-    }
-
-    private static VarReg evaluateBinaryOperation(VarReg left, VarReg right, DTE binOp) {
         checkSameTypes(left.type, right.type);
 
         int leftRegister = left.register;
@@ -169,19 +68,19 @@ public class ExpressionEvaluator {
         VarType expressionType = left.type;
 
         return switch (expressionType.typeClass) {
-            case INT -> evaluateSignedBinaryOperation(leftRegister, rightRegister, binOp);
-            case UINT -> evaluateUnsignedBinaryOperation(leftRegister, rightRegister, binOp);
+            case INT -> evaluateSignedBinaryOperation(leftRegister, rightRegister, operator);
+            case UINT -> evaluateUnsignedBinaryOperation(leftRegister, rightRegister, operator);
             default -> throw new IllegalArgumentException("Expected INT/UINT, " + " got " + expressionType.typeClass);
         };
     }
 
-    private static VarReg evaluateSignedBinaryOperation(int leftRegister, int rightRegister, DTE binOp) {
-        String instr = switch (binOp.labelContent()) {
-            case "+" -> Instruction.add(leftRegister, leftRegister, rightRegister);
-            case "-" -> Instruction.sub(leftRegister, leftRegister, rightRegister);
-            case "*" -> "macro: mul($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
-            case "/" -> "macro: divt($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
-            default -> throw new IllegalArgumentException("Expected binary operator, got " + binOp.labelContent());
+    private static VarReg evaluateSignedBinaryOperation(int leftRegister, int rightRegister, Operator operator) {
+        String instr = switch (operator) {
+            case ADD -> Instruction.add(leftRegister, leftRegister, rightRegister);
+            case SUB -> Instruction.sub(leftRegister, leftRegister, rightRegister);
+            case MUL -> "macro: mul($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
+            case DIV -> "macro: divt($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
+            default -> throw new IllegalArgumentException("Expected binary operator, got " + operator);
         };
 
         cg().addInstruction(instr);
@@ -189,13 +88,13 @@ public class ExpressionEvaluator {
         return new VarReg(leftRegister, VarType.INT_TYPE);
     }
 
-    private static VarReg evaluateUnsignedBinaryOperation(int leftRegister, int rightRegister, DTE binOp) {
-        String instr = switch (binOp.labelContent()) {
-            case "+" -> Instruction.addu(leftRegister, leftRegister, rightRegister);
-            case "-" -> Instruction.subu(leftRegister, leftRegister, rightRegister);
-            case "*" -> "macro: mul($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
-            case "/" -> "macro: divu($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
-            default -> throw new IllegalArgumentException("Expected binary operator, got " + binOp.labelContent());
+    private static VarReg evaluateUnsignedBinaryOperation(int leftRegister, int rightRegister, Operator operator) {
+        String instr = switch (operator) {
+            case ADD -> Instruction.addu(leftRegister, leftRegister, rightRegister);
+            case SUB -> Instruction.subu(leftRegister, leftRegister, rightRegister);
+            case MUL -> "macro: mul($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
+            case DIV -> "macro: divu($" + leftRegister + ", $" + leftRegister + ", $" + rightRegister + ")";
+            default -> throw new IllegalArgumentException("Expected binary operator, got " + operator);
         };
 
         cg().addInstruction(instr);
@@ -203,47 +102,30 @@ public class ExpressionEvaluator {
         return new VarReg(leftRegister, VarType.UINT_TYPE);
     }
 
-    private static VarReg evaluateAtom(DTE atom) throws Exception {
-        checkTokenType(atom, "<Atom>");
-
-        DTE left, op, right;
-
-        left = atom.getFirstSon();
-        assert left != null;
-
-        if (left.isType("<BC>")) {
-            return evaluateBooleanConstant(left);
-        }
-
-        op = left.getBrother();
-        assert op != null;
-        right = op.getBrother();
-        assert right != null;
-
-        checkTokenType(left, "<E>");
-        checkTokenType(right, "<E>");
+    // <BE> || <BT> | <BT> && <BF>
+    private static VarReg evaluateLogicalOperation(VarReg left, VarReg right, Operator operator) {
+        String instr = operator == Operator.OR
+                ? Instruction.or(left.register, left.register, right.register)
+                : Instruction.and(left.register, left.register, right.register);
+        cg().addInstruction(instr);
 
-        VarReg leftVar = evaluateExpression(left);
-        VarReg rightVar = evaluateExpression(right);
+        Configuration.getInstance().freeRegister(right.register);
+        return new VarReg(left.register, VarType.BOOL_TYPE);
+    }
 
+    // <E> op <E> of an <Atom>
+    private static VarReg evaluateComparison(VarReg leftVar, VarReg rightVar, Operator operator) {
         checkSameTypes(leftVar.type, rightVar.type);
 
-        String instr;
-        if (op.isType(">")) {
-            instr = "sgt " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
-        } else if (op.isType("<")) {
-            instr = Instruction.slt(leftVar.register, leftVar.register, rightVar.register);
-        } else if (op.isType(">=")) {
-            instr = "greater than or equal";
-        } else if (op.isType("<=")) {
-            instr = "less than or equal";
-        } else if (op.isType("==")) {
-            instr = "eq " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
-        } else if (op.isType("!=")) {
-            instr = "neq " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
-        } else {
-            throw new IllegalArgumentException("Grammar error on \"" + atom.getBorderWord() + "\"");
-        }
+        String instr = switch (operator) {
+            case GT -> "sgt " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
+            case LT -> Instruction.slt(leftVar.register, leftVar.register, rightVar.register);
+            case GE -> "greater than or equal";
+            case LE -> "less than or equal";
+            case EQ -> "eq " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
+            case NE -> "neq " + leftVar.register + " " + leftVar.register + " " + rightVar.register;
+            default -> throw new IllegalArgumentException("Expected comparison, got " + operator);
+        };
 
         cg().addInstruction(instr);
         Configuration.getInstance().freeRegister(rightVar.register);
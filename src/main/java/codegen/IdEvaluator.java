@@ -1,5 +1,8 @@
 package codegen;
 
+import ast.Node;
+import ast.Node.Access;
+import ast.Node.IdPath;
 import config.Configuration;
 import model.Fun;
 import model.VarReg;
@@ -7,13 +10,13 @@ import model.VarType;
 import model.Variable;
 import table.MemoryTable;
 import table.TypeTable;
-import tree.DTE;
 
-import static codegen.ExpressionEvaluator.evaluateExpression;
+import java.util.List;
+
+import static codegen.ExpressionEvaluator.evaluate;
 import static util.Context.BPT;
 import static util.Context.SPT;
 import static util.Logger.log;
-import static util.TypeUtils.checkTokenType;
 
 public class IdEvaluator {
     private static CodeGenerator cg() {
@@ -21,119 +24,110 @@ public class IdEvaluator {
     }
 
 
-    public static VarReg evaluateId(DTE id, boolean lv) throws Exception {
-        checkTokenType(id, "<id>");
-
-        log("Evaluating id: " + id.getBorderWord());
+    // Evaluates the address of the given id into a register, and its value unless it is an l-value ('lv').
+    // The accesses are applied from left to right; every access but the last works on the address of what is left of it.
+    public static VarReg evaluateId(IdPath id, boolean lv) throws Exception {
+        log(id);
 
         // id -> Na
-        if (id.getFirstSon().isType("<Na>")) {
-            log("Found <Na>:\n");
-            DTE na = id.getFirstSon();
-            VarReg result = bindVariableName(na);
-
+        VarReg result = bindVariableName(id.name());
+        List<Access> accesses = id.accesses();
+        if (accesses.isEmpty()) {
             if (!lv) {
                 String instr = Instruction.deref(result.register);
                 cg().addInstruction(instr);
             }
-
             return result;
         }
 
-        // id -> id.Na
-        if (id.getNthSon(2).isType(".")) {
-            DTE nestedId = id.getFirstSon();
-            DTE nestedNa = id.getNthSon(3);
-//            int struct = evaluateId(flattened.get(0));
-            VarReg structReg = evaluateId(nestedId, true);
-            String compName = nestedNa.getBorderWord();
-
-            Variable boundComp = structReg.variable.getStructComponent(compName);
-
-            if (boundComp != null) { // variable in struct
-                // let j store base address of struct
-                // generated instruction will be
-                // addi j j displ(comp, struct)
-                int j = structReg.register;
-                int displ = boundComp.getDisplacement();
-
-                // create instruction
-                String instr = Instruction.addi(j, j, displ);
-                // add instruction to the list
-                cg().addInstruction(instr);
-
-                VarReg result = new VarReg(boundComp, j);
-
-                if (!lv) {
-                    cg().addInstruction(Instruction.deref(result.register));
+        for (int i = 0; i < accesses.size(); i++) {
+            Access access = accesses.get(i);
+            boolean address = i < accesses.size() - 1 || lv;
+            result = switch (access.kind()) {
+                case COMPONENT -> evaluateComponent(result, access.component(), address);
+                case INDEX -> evaluateIndex(result, access.index(), address);
+                case DEREF -> evaluateDereference(result, address);
+                case ADDRESS -> {
+                    VarType pType = TypeTable.getInstance().getTypesPointer(result.type);
+                    yield new VarReg(result.register, pType);
                 }
-
-                return result;
-            }
+            };
         }
+        return result;
+    }
 
-        // id -> id[E]
-        if (id.getNthSon(2).isType("[")) {
-            DTE nestedId = id.getFirstSon();
-            DTE nestedIndex = id.getNthSon(3);
+    // id -> id.Na
+    private static VarReg evaluateComponent(VarReg structReg, String compName, boolean lv) {
+        Variable boundComp = structReg.variable.getStructComponent(compName);
+        if (boundComp == null) {
+            throw new IllegalArgumentException("No component with name " + compName + " found.");
+        }
 
-            VarReg array = evaluateId(nestedId, true);
-            VarReg index = evaluateExpression(nestedIndex);
+        // let j store base address of struct
+        // generated instruction will be
+        // addi j j displ(comp, struct)
+        int j = structReg.register;
+        int displ = boundComp.getDisplacement();
 
-            // gpr(23) = enc(size(t))
-            int arrSize = array.type.arraySize;
-            // storing encoded size in $23
-            cg().addInstruction("macro: gpr(23) = enc(" + arrSize + ", uint)");
+        // create instruction
+        String instr = Instruction.addi(j, j, displ);
+        // add instruction to the list
+        cg().addInstruction(instr);
 
-            // mul(j', j', 23)
-            cg().addInstruction("macro: mul($" + index.register + ", $" + index.register + ", $23)");
+        VarReg result = new VarReg(boundComp, j);
 
-            // add j j j'
-            String instr = Instruction.add(array.register, array.register, index.register);
-            cg().addInstruction(instr);
+        if (!lv) {
+            cg().addInstruction(Instruction.deref(result.register));
+        }
 
-            Configuration.getInstance().freeRegister(index.register);
+        return result;
+    }
 
-            assert array.variable != null;
-            VarReg result = new VarReg(array.register, array.variable.getType().getArrayCompTargetType());
+    // id -> id[E]
+    private static VarReg evaluateIndex(VarReg array, Node nestedIndex, boolean lv) throws Exception {
+        VarReg index = evaluate(nestedIndex);
 
-            if (!lv) {
-                cg().addInstruction(Instruction.deref(result.register));
-            }
+        // gpr(23) = enc(size(t))
+        int arrSize = array.type.arraySize;
+        // storing encoded size in $23
+        cg().addInstruction("macro: gpr(23) = enc(" + arrSize + ", uint)");
 
-            return result;
-        }
+        // mul(j', j', 23)
+        cg().addInstruction("macro: mul($" + index.register + ", $" + index.register + ", $23)");
 
-        // id -> id*
-        if (id.getNthSon(2).isType("'")) {
-            VarReg pointer = evaluateId(id.getFirstSon(), true);
-            log("POINTER " + id.getBorderWord() + ", of form: " + pointer.variable + ", " + pointer.type);
+        // add j j j'
+        String instr = Instruction.add(array.register, array.register, index.register);
+        cg().addInstruction(instr);
 
-            // create instruction lw j j 0 ~ deref
-            String instr = Instruction.deref(pointer.register);
-            cg().addInstruction(instr);
+        Configuration.getInstance().freeRegister(index.register);
 
-            if (!lv) {
-                cg().addInstruction(Instruction.deref(pointer.register));
-            }
+        assert array.variable != null;
+        VarReg result = new VarReg(array.register, array.variable.getType().getArrayCompTargetType());
 
-            VarType targetType = TypeTable.getInstance().getType(pointer.type.pointerTypeTargetName);
-            return new VarReg(new Variable(null, 0, targetType, 0), pointer.register);
+        if (!lv) {
+            cg().addInstruction(Instruction.deref(result.register));
         }
 
-        if (id.getNthSon(2).isType("&")) {
-            VarReg boundVar = bindVariableName(id.getFirstSon().getFirstSon());
-            VarType pType = TypeTable.getInstance().getTypesPointer(boundVar.type);
-            return new VarReg(boundVar.register, pType);
+        return result;
+    }
+
+    // id -> id*
+    private static VarReg evaluateDereference(VarReg pointer, boolean lv) throws Exception {
+        log("POINTER of form: " + pointer.variable + ", " + pointer.type);
+
+        // create instruction lw j j 0 ~ deref
+        String instr = Instruction.deref(pointer.register);
+        cg().addInstruction(instr);
+
+        if (!lv) {
+            cg().addInstruction(Instruction.deref(pointer.register));
         }
 
-        throw new IllegalArgumentException("Grammar error on \"" + id.getBorderWord() + "\"");
+        VarType targetType = TypeTable.getInstance().getType(pointer.type.pointerTypeTargetName);
+        return new VarReg(new Variable(null, 0, targetType, 0), pointer.register);
     }
 
-    public static VarReg bindVariableName(DTE na) {
-        checkTokenType(na, "<Na>");
-
-        String name = na.getBorderWord();
+    public static VarReg bindVariableName(String name) {
         Variable bindedVariable = null;
 
 
@@ -0,0 +1,232 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static util.Logger.log;
+
+// The ACTION and GOTO tables of a ‘ParseTable’, packed by row displacement (comb packing). Entries are encoded as in ‘ParseTable’.
+// Every state has a default action: its most frequent reduction, or ERROR if it doesn't reduce. Entries equal to the default and ERROR entries are dropped,
+// so a state with a default reduction reduces on every other lookahead. Valid input is parsed exactly as with the dense tables; a syntax error may be
+// detected a few reductions later, but always before the offending terminal is shifted.
+// The remaining entries of all rows are overlaid in one 'next' array: row r starts at base[r], and check[base[r] + column] == r marks the entries that belong to it.
+// A lookup is two array reads and a comparison.
+public class CompressedParseTable implements LRTables {
+
+    // Row displacement of a sparse table: next[base[row] + column] holds the entry if check[base[row] + column] == row.
+    private record Packed(int[] base, int[] next, int[] check) {
+
+        int get(int row, int column, int missing) {
+            int index = base[row] + column;
+            return index < check.length && check[index] == row ? next[index] : missing;
+        }
+
+        int size() {
+            return base.length + next.length + check.length;
+        }
+    }
+
+    // A ‘Grammar’ object representing the CFG of the tables.
+    private final Grammar g;
+    private final Symbol[] terminals;
+    private final int stateCount;
+
+    // The default ACTION entry of every state.
+    private final int[] defaultActions;
+    // The ACTION entries that differ from the defaults, and all GOTO entries.
+    private final Packed action;
+    private final Packed gotoTable;
+    // For every state whose only action is its default reduction by a unit production, the id of that production; -1 for all other states.
+    private final int[] unitReductions;
+
+    // The size of the dense tables, in int entries.
+    private final int denseSize;
+
+    // Packs the tables of the given dense parse table.
+    public CompressedParseTable(ParseTable table) {
+        this.g = table.getGrammar();
+        this.terminals = table.getTerminals();
+        this.stateCount = table.stateCount();
+
+        int actionColumns = terminals.length + 1;
+        int gotoColumns = table.getNonterminals().length;
+        denseSize = stateCount * (actionColumns + gotoColumns);
+
+        defaultActions = new int[stateCount];
+        unitReductions = new int[stateCount];
+        List<int[]> actionColumnsByRow = new ArrayList<>();
+        List<int[]> actionValuesByRow = new ArrayList<>();
+        List<int[]> gotoColumnsByRow = new ArrayList<>();
+        List<int[]> gotoValuesByRow = new ArrayList<>();
+
+        for (int state = 0; state < stateCount; state++) {
+            int[] row = new int[actionColumns];
+            for (int column = 0; column < actionColumns; column++) {
+                row[column] = table.action(state, column);
+            }
+            defaultActions[state] = mostFrequentReduction(row);
+            addSparseRow(row, defaultActions[state], actionColumnsByRow, actionValuesByRow);
+            unitReductions[state] = -1;
+            int production = -defaultActions[state] - 1;
+            if (actionColumnsByRow.get(state).length == 0 && defaultActions[state] != ParseTable.ERROR
+                    && production < g.getProductions().size() && g.getProductions().get(production).isUnit()) {
+                unitReductions[state] = production;
+            }
+
+            row = new int[gotoColumns];
+            for (int column = 0; column < gotoColumns; column++) {
+                row[column] = table.goTo(state, column);
+            }
+            addSparseRow(row, -1, gotoColumnsByRow, gotoValuesByRow);
+        }
+
+        action = pack(actionColumnsByRow, actionValuesByRow);
+        gotoTable = pack(gotoColumnsByRow, gotoValuesByRow);
+
+        log("Parse tables compressed from " + denseSize + " to " + getCompressedSize() + " ints, ratio " + String.format("%.1f", (double) denseSize / getCompressedSize()));
+    }
+
+    // Returns the reduction that occurs most often in the given ACTION row, or ERROR if there is none. Ties go to the first column.
+    private static int mostFrequentReduction(int[] row) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int result = ParseTable.ERROR;
+        int best = 0;
+        for (int entry : row) {
+            if (entry >= 0) continue;
+            int count = counts.merge(entry, 1, Integer::sum);
+            if (count > best) {
+                best = count;
+                result = entry;
+            }
+        }
+        return result;
+    }
+
+    // Adds the columns and values of the entries of the row that differ from the given default. ERROR entries of the ACTION table are dropped as well.
+    private static void addSparseRow(int[] row, int defaultEntry, List<int[]> columnsByRow, List<int[]> valuesByRow) {
+        int count = 0;
+        for (int entry : row) {
+            if (entry != defaultEntry && entry != ParseTable.ERROR) count++;
+        }
+
+        int[] columns = new int[count];
+        int[] values = new int[count];
+        int i = 0;
+        for (int column = 0; column < row.length; column++) {
+            if (row[column] != defaultEntry && row[column] != ParseTable.ERROR) {
+                columns[i] = column;
+                values[i] = row[column];
+                i++;
+            }
+        }
+        columnsByRow.add(columns);
+        valuesByRow.add(values);
+    }
+
+    // Overlays the rows first-fit, the rows with the most entries first.
+    private static Packed pack(List<int[]> columnsByRow, List<int[]> valuesByRow) {
+        int rows = columnsByRow.size();
+        Integer[] order = new Integer[rows];
+        for (int row = 0; row < rows; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, (a, b) -> columnsByRow.get(b).length - columnsByRow.get(a).length);
+
+        int[] base = new int[rows];
+        int[] next = new int[64];
+        int[] check = new int[64];
+        Arrays.fill(check, -1);
+        int size = 0;
+        // All slots below firstFree are taken
+        int firstFree = 0;
+
+        for (int row : order) {
+            int[] columns = columnsByRow.get(row);
+            if (columns.length == 0) continue;
+
+            while (firstFree < check.length && check[firstFree] != -1) firstFree++;
+
+            int candidate = Math.max(0, firstFree - columns[0]);
+            while (true) {
+                int end = candidate + columns[columns.length - 1] + 1;
+                if (end > check.length) {
+                    int capacity = Math.max(2 * check.length, end);
+                    next = Arrays.copyOf(next, capacity);
+                    int oldLength = check.length;
+                    check = Arrays.copyOf(check, capacity);
+                    Arrays.fill(check, oldLength, capacity, -1);
+                }
+
+                boolean fits = true;
+                for (int column : columns) {
+                    if (check[candidate + column] != -1) {
+                        fits = false;
+                        break;
+                    }
+                }
+                if (fits) break;
+                candidate++;
+            }
+
+            base[row] = candidate;
+            int[] values = valuesByRow.get(row);
+            for (int i = 0; i < columns.length; i++) {
+                next[candidate + columns[i]] = values[i];
+                check[candidate + columns[i]] = row;
+            }
+            size = Math.max(size, candidate + columns[columns.length - 1] + 1);
+        }
+
+        return new Packed(base, Arrays.copyOf(next, size), Arrays.copyOf(check, size));
+    }
+
+    // Returns the ACTION entry of the given state and terminal number. The number of terminals stands for the end of the input.
+    @Override
+    public int action(int state, int terminal) {
+        return action.get(state, terminal, defaultActions[state]);
+    }
+
+    // Returns the GOTO entry of the given state and nonterminal number, or -1 if there is none.
+    @Override
+    public int goTo(int state, int nonterminal) {
+        return gotoTable.get(state, nonterminal, -1);
+    }
+
+    // Returns the id of the unit production that the given state reduces by whatever the lookahead is, or -1 if there is none.
+    @Override
+    public int unitReduction(int state) {
+        return unitReductions[state];
+    }
+
+    @Override
+    public int stateCount() {
+        return stateCount;
+    }
+
+    @Override
+    public Symbol[] getTerminals() {
+        return terminals;
+    }
+
+    @Override
+    public Grammar getGrammar() {
+        return g;
+    }
+
+    // Returns the size of the dense ACTION and GOTO tables, in int entries.
+    public int getDenseSize() {
+        return denseSize;
+    }
+
+    // Returns the size of the compressed tables, in int entries: the defaults, and base, next and check of both tables.
+    public int getCompressedSize() {
+        return defaultActions.length + action.size() + gotoTable.size();
+    }
+}
@@ -0,0 +1,108 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import grammar.TerminalSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Finds all shift/reduce and reduce/reduce conflicts of a DK1 automaton.
+// Every state is checked in a single pass over its items: the terminals it shifts and the lookaheads claimed by its reductions so far are kept as bitsets,
+// and a reduction conflicts when its lookaheads intersect either of them. Only then are the items scanned again to name the offending productions.
+// Shift/reduce conflicts that the precedence declarations of the grammar resolve are not reported. States are analyzed in parallel. The conflicts are listed by state number, in the order of ‘ParseTable’.
+public class ConflictAnalyzer {
+
+    public enum Kind {
+        SHIFT_REDUCE, REDUCE_REDUCE
+    }
+
+    // A conflict in the given state on the given terminals.
+    // For SHIFT_REDUCE, 'reduce' is reduced on a single terminal and 'others' are all productions that shift it, by id;
+    // for REDUCE_REDUCE, 'others' is the one other production that is reduced, and 'reduce' has the smaller production id.
+    public record Conflict(Kind kind, int state, Production reduce, List<Production> others, TerminalSet terminals) {
+        @Override
+        public String toString() {
+            String kindName = kind == Kind.SHIFT_REDUCE ? "shift/reduce" : "reduce/reduce";
+            String otherNames = others.stream().map(Production::toString).collect(Collectors.joining(", "));
+            return kindName + " conflict in state " + state + ": " + reduce + " and " + otherNames + " on " + terminals;
+        }
+    }
+
+    private final List<Conflict> conflicts;
+
+    // Analyzes the states of the given automaton. For a lazy automaton, only the states made so far are analyzed.
+    public ConflictAnalyzer(DK1 dk1) {
+        List<State> states = new ArrayList<>(dk1.getStates());
+        conflicts = IntStream.range(0, states.size())
+                .parallel()
+                .mapToObj(number -> analyze(number, states.get(number), dk1))
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    private static List<Conflict> analyze(int number, State state, DK1 dk1) {
+        if (state.getCompleteItems().isEmpty()) return List.of();
+        List<Conflict> result = new ArrayList<>();
+
+        TerminalSet shifts = new TerminalSet(dk1.getGrammar().getSymbolTable());
+        List<Item> completeItems = new ArrayList<>();
+        List<Item> shiftItems = new ArrayList<>();
+        for (Item item : state.getItems()) {
+            if (item.isComplete()) {
+                completeItems.add(item);
+            } else if (item.currentSymbol().isTerminal()) {
+                shiftItems.add(item);
+                shifts.add(item.currentSymbol());
+            }
+        }
+        completeItems.sort(Comparator.comparingInt(item -> item.getProduction().getId()));
+        shiftItems.sort(Comparator.comparingInt((Item shiftItem) -> shiftItem.getProduction().getId()).thenComparingInt(Item::getDotIndex));
+
+        TerminalSet reduced = new TerminalSet(dk1.getGrammar().getSymbolTable());
+        for (int i = 0; i < completeItems.size(); i++) {
+            Item item = completeItems.get(i);
+
+            // One conflict per conflicting terminal, naming every production that shifts it
+            if (item.getLookaheads().intersects(shifts)) {
+                TerminalSet conflicting = item.getLookaheads().copy();
+                conflicting.retainAll(shifts);
+                for (Symbol symbol : conflicting) {
+                    if (dk1.getGrammar().resolve(item.getProduction(), symbol) != Grammar.Resolution.UNRESOLVED) continue;
+
+                    List<Production> shifting = new ArrayList<>();
+                    for (Item shiftItem : shiftItems) {
+                        Production production = shiftItem.getProduction();
+                        if (shiftItem.currentSymbol() == symbol && (shifting.isEmpty() || shifting.get(shifting.size() - 1) != production)) {
+                            shifting.add(production);
+                        }
+                    }
+                    TerminalSet terminals = new TerminalSet(dk1.getGrammar().getSymbolTable());
+                    terminals.add(symbol);
+                    result.add(new Conflict(Kind.SHIFT_REDUCE, number, item.getProduction(), List.copyOf(shifting), terminals));
+                }
+            }
+
+            if (item.getLookaheads().intersects(reduced)) {
+                for (Item earlierItem : completeItems.subList(0, i)) {
+                    if (earlierItem.getLookaheads().intersects(item.getLookaheads())) {
+                        TerminalSet terminals = earlierItem.getLookaheads().copy();
+                        terminals.retainAll(item.getLookaheads());
+                        result.add(new Conflict(Kind.REDUCE_REDUCE, number, earlierItem.getProduction(), List.of(item.getProduction()), terminals));
+                    }
+                }
+            }
+            reduced.addAll(item.getLookaheads());
+        }
+
+        return result;
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+}
@@ -1,147 +1,356 @@
 package dk;
 
+import lexer.Token;
 import tree.DTE;
+import tree.TreeBuilder;
 import grammar.Grammar;
 import grammar.Production;
 import grammar.Symbol;
+import grammar.TerminalSet;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import static util.Logger.log;
 
 public class DK1 {
 
+    // The parse engines that can run on the automaton.
+    // HANDLE_RESCAN re-runs the automaton from the start state over the whole prefix after every reduction.
+    // SHIFT_REDUCE keeps a stack of states and resumes from the exposed state after every reduction, so it runs in time linear in the input.
+    // TABLE runs the shift-reduce algorithm on the ACTION and GOTO tables compiled from the automaton.
+    public enum Engine {
+        HANDLE_RESCAN, SHIFT_REDUCE, TABLE
+    }
+
     // A ‘State’ object representing the start state of the automaton.
     private final State start;
 
-    // A set of ‘State’ objects representing all the states of the automaton.
-    private final HashSet<State> states;
+    // All the states of the automaton, indexed by their canonical keys. Iteration follows the order in which the states were discovered.
+    private final LinkedHashMap<StateKey, State> states;
 
     // A ‘Grammar’ object representing the input CFG.
     private final Grammar g;
 
+    // The compiled ACTION and GOTO tables of the automaton. Compiled on first request.
+    private ParseTable parseTable;
+
+    // The states by the keys of their kernels. Only kept by a lazy automaton, which still makes transitions while parsing; null otherwise.
+    private final Map<StateKey, State> kernels;
+
     // Creates the DK_1 automaton for the given CFG, grammar.
     public DK1(Grammar grammar) {
+        this(grammar, (state, kernels) -> state.makeShiftMoves(kernels, grammar));
+    }
+
+    // Makes the shift moves of a state during the construction and returns the states that are reached for the first time, as ‘State.makeShiftMoves’ does.
+    interface Expansion {
+        List<State> makeShiftMoves(State state, Map<StateKey, State> kernels);
+    }
+
+    // Same as above, but the states make their shift moves with the given expansion, see ‘IncrementalDK1’. The states are found and numbered as by the constructor above.
+    DK1(Grammar grammar, Expansion expansion) {
         // Initialize the Grammar
         this.g = grammar;
 
-        // Initialize the Start State
-        start = new State();
+        // Initialize the Start State and put it in the states
+        start = createStartState(grammar);
+        states = new LinkedHashMap<>();
+        states.put(start.getKey(), start);
+        kernels = null;
+
+        buildSequentially(expansion);
+    }
+
+    // Same as above, but the states of each BFS level are expanded concurrently in the given pool.
+    // The states are numbered exactly as by the sequential construction, so both produce the same tables.
+    public DK1(Grammar grammar, ForkJoinPool pool) {
+        this.g = grammar;
+
+        start = createStartState(grammar);
+        states = new LinkedHashMap<>();
+        states.put(start.getKey(), start);
+        kernels = null;
+
+        buildInParallel(pool);
+    }
+
+    // Creates a lazy DK_1 automaton for the given CFG, grammar. Only the start state is built here;
+    // the other states and transitions are made when a parser first follows them, and are memoized after that. A lazy automaton must not be shared between threads.
+    // getStates and dk1Test only see the states made so far. Compiling the parse table makes all remaining states first.
+    public static DK1 lazy(Grammar grammar) {
+        return new DK1(grammar, new HashMap<>());
+    }
+
+    private DK1(Grammar grammar, Map<StateKey, State> kernels) {
+        this.g = grammar;
+
+        start = createStartState(grammar);
+        states = new LinkedHashMap<>();
+        states.put(start.getKey(), start);
+        this.kernels = kernels;
+    }
+
+    private static State createStartState(Grammar grammar) {
+        State start = new State();
         for (Production production : grammar.getProductions()) {
             if (production.getLeft().equals(grammar.getStart())) {
-                start.addItem(new Item(production, 0, grammar.getTerminals()));
+                start.addItem(new Item(production, 0, grammar.allTerminals()));
             }
         }
 
         // Make Epsilon Moves from the Start State
         start.makeEpsilonMoves(grammar);
+        return start;
+    }
 
-        // Put the start state in the states
-        states = new HashSet<>();
-        states.add(start);
+    // Finds all states breadth-first. New states are numbered in the order of their discovery: by the state they're reached from, then by the transition symbol.
+    private void buildSequentially(Expansion expansion) {
+        // The states by the keys of their kernels
+        Map<StateKey, State> kernels = new HashMap<>();
 
         // Make Transitions and Find all States
         Queue<State> queue = new LinkedList<>();
-        Queue<State> queueCheck = new LinkedList<>();
         queue.add(start);
-        queueCheck.add(start);
 
         // Variable completionPercentage to display the progress of the automaton creation
         int completionPercentage = 0;
 
         while (!queue.isEmpty()) {
             State currentState = queue.remove();
-            currentState.makeShiftMoves(states, grammar);
+
+            // States that are reached for the first time still need their own transitions
+            for (State newState : expansion.makeShiftMoves(currentState, kernels)) {
+                states.put(newState.getKey(), newState);
+                queue.add(newState);
+            }
 
             if ((int) (states.size() / 31.97) > completionPercentage) {
                 completionPercentage = (int) (states.size() / 31.97);
                 log("DK1 Automaton Progress: " + completionPercentage + "%");
             }
+        }
+    }
 
-            for (Map.Entry<Symbol, State> entry : currentState.getTransitionFunction().entrySet()) {
-                State newState = entry.getValue();
-
-                boolean flag = false;
-                for (State state : queueCheck) {
-                    if (state.getItems().size() == newState.getItems().size() && state.sameItems(newState)) {
-                        flag = true;
-                        break;
+    // Finds all states one BFS level at a time. The states of a level make their shift moves concurrently;
+    // a concurrent map of the states by their kernels makes sure that workers reaching the same item set settle on one state.
+    // Between the levels, the new states are numbered in the order of the sequential construction: by the state they're reached from, then by the transition symbol.
+    private void buildInParallel(ForkJoinPool pool) {
+        ConcurrentHashMap<StateKey, State> kernels = new ConcurrentHashMap<>();
+
+        List<State> level = List.of(start);
+        while (!level.isEmpty()) {
+            List<State> currentLevel = level;
+            pool.submit(() -> currentLevel.parallelStream().forEach(state -> state.makeShiftMoves(kernels, g))).join();
+
+            List<State> nextLevel = new ArrayList<>();
+            for (State state : currentLevel) {
+                for (State target : state.getTransitionFunction().values()) {
+                    if (states.putIfAbsent(target.getKey(), target) == null) {
+                        nextLevel.add(target);
                     }
                 }
-                if (flag) continue;
-
-                queue.add(newState);
-                queueCheck.add(newState);
             }
+            level = nextLevel;
+
+            log("DK1 Automaton: " + states.size() + " states, " + level.size() + " in the next level");
         }
     }
 
-    // Returns true if the ‘Grammar’ is LR(1), false otherwise.
-    public boolean dk1Test() {
-        for (State currentState : states) {
-            for (Item R1 : currentState.getItems()) {
-                for (Item R2 : currentState.getItems()) {
-                    if (!R1.isComplete()) break;
-                    if (R1.equals(R2)) continue;
-                    if (R2.isComplete()) {
-                        for (Symbol symbol : R1.getLookaheads()) {
-                            if (R2.getLookaheads().contains(symbol)) {
-                                log("Failing State Condition_1: ");
-                                log(R1);
-                                log(R2);
-                                log(currentState.toStringOnlyState());
-                                return false;
-                            }
-                        }
-                    } else {
-                        Symbol currentSymbol = R2.currentSymbol();
-
-                        if (R1.getLookaheads().contains(currentSymbol)) {
-                            log("Failing State Condition_2: ");
-                            log(R1);
-                            log(R2);
-                            log(currentState.toStringOnlyState());
-                            return false;
-                        }
-                    }
-                }
-            }
+    // Wraps the states of an automaton that was built elsewhere, e.g. by ‘LALR1’. The first state is the start state.
+    DK1(Grammar grammar, List<State> states) {
+        this.g = grammar;
+        this.kernels = null;
+        this.start = states.get(0);
+        this.states = new LinkedHashMap<>();
+        for (State state : states) {
+            this.states.put(state.getKey(), state);
         }
+    }
 
-        return true;
+    // Returns true if the ‘Grammar’ is LR(1), false otherwise. Every conflict found by the ‘ConflictAnalyzer’ is logged.
+    public boolean dk1Test() {
+        List<ConflictAnalyzer.Conflict> conflicts = new ConflictAnalyzer(this).getConflicts();
+        for (ConflictAnalyzer.Conflict conflict : conflicts) {
+            log(conflict);
+        }
+        return conflicts.isEmpty();
     }
 
-    // Returns a derivation tree for the given valid string.
+    // Returns a derivation tree for the given valid string, using the shift-reduce engine.
     public DTE parseString(String validString) {
+        return parseString(validString, Engine.SHIFT_REDUCE);
+    }
+
+    // Returns a derivation tree for the given valid string, using the given engine. All engines produce identical trees.
+    public DTE parseString(String validString, Engine engine) {
+        return parseString(validString, engine, false);
+    }
 
-        ArrayList<Symbol> validStringArray = Grammar.stringIntoSymbols(validString, g.getTerminals(), g.getNonterminals());
-        validStringArray = Grammar.eliminateExtraWhitespace(validStringArray);
+    // Returns a derivation tree for the given valid string, using the given engine. With 'dropLayout', the whitespace terminals get no leaves, see ‘TreeBuilder’.
+    public DTE parseString(String validString, Engine engine, boolean dropLayout) {
+        ArrayList<Token> tokens = g.tokenize(validString);
 
-        // Initialize The parse tree with the validStringArray and after the parsing only the root will be in the array
-        ArrayList<DTE> parseTree = new ArrayList<>();
+        return switch (engine) {
+            case HANDLE_RESCAN -> parseByHandleRescan(tokens, dropLayout);
+            case SHIFT_REDUCE -> parseByShiftReduce(tokens, dropLayout);
+            case TABLE -> getParseTable().parse(tokens, true, dropLayout);
+        };
+    }
+
+    // Parses by repeatedly finding the handle of the whole sentential form and reducing it.
+    // Everything to the right of a handle are tokens, so the tree is built on a value stack: the tokens up to the end of the handle are shifted, then it is reduced.
+    private DTE parseByHandleRescan(ArrayList<Token> tokens, boolean dropLayout) {
+
+        // Initialize the sentential form with the tokens, after the parsing only the start symbol will be in the array
+        ArrayList<Symbol> validStringArray = new ArrayList<>();
+        TreeBuilder tree = new TreeBuilder(g.getSymbolTable(), tokens.size(), dropLayout);
 
-        for (Symbol symbol : validStringArray) {
-            parseTree.add(new DTE(symbol));
+        for (Token token : tokens) {
+            validStringArray.add(token.kind());
         }
 
         // Parsing Process
         Item handle;
+        int position = 0;
 
-        while (!validStringArray.get(0).equals(g.getStart())) {
+        while (validStringArray.size() > 1 || !validStringArray.get(0).equals(g.getStart())) {
             handle = findHandle(validStringArray);
+            if (handle == null) {
+                throw new IllegalArgumentException("Syntax error: no handle in the sentential form");
+            }
 
             log(validStringArray + "     [handle: " + handle.getProduction() +"]");
 
-            validStringArray = makeReduction(validStringArray, handle.getProduction(), handle.getDotIndex());
-
             // Update the parse Tree
-            parseTree = DTE.updateTheParseTree(parseTree, handle);
+            while (tree.size() < handle.getDotIndex()) {
+                tree.shift(tokens.get(position).kind(), tokens.get(position).text());
+                position++;
+            }
+            tree.reduce(handle.getProduction());
+
+            validStringArray = makeReduction(validStringArray, handle.getProduction(), handle.getDotIndex());
         }
 
         log(validStringArray);
 
-        return parseTree.get(0);
+        return tree.getRoot();
+
+    }
+
+    // Parses with a stack of states. A reduction pops the states of the handle and continues from the exposed state with the left-hand side of the production,
+    // instead of running the automaton from the start state again. Reductions are preferred to shifts unless the precedence declarations say otherwise and,
+    // at the end of the input, any complete item reduces, as in findHandle.
+    private DTE parseByShiftReduce(ArrayList<Token> tokens, boolean dropLayout) {
+
+        ArrayList<State> stateStack = new ArrayList<>();
+        TreeBuilder tree = new TreeBuilder(g.getSymbolTable(), tokens.size(), dropLayout);
+        stateStack.add(start);
+
+        int position = 0;
+        while (true) {
+            State currentState = stateStack.get(stateStack.size() - 1);
+            Symbol lookahead = position < tokens.size() ? tokens.get(position).kind() : null;
+
+            Item handle = null;
+            for (Item item : currentState.getCompleteItems()) {
+                if (lookahead != null && !item.getLookaheads().contains(lookahead)) continue;
+                Grammar.Resolution resolution = resolve(currentState, item, lookahead);
+                if (resolution == Grammar.Resolution.ERROR) {
+                    throw new IllegalArgumentException("Syntax error at symbol " + position + ": \"" + tokens.get(position).text() + "\" is nonassociative");
+                }
+                if (resolution == Grammar.Resolution.REDUCE) {
+                    handle = item;
+                }
+                break;
+            }
+
+            // Reduce
+            if (handle != null) {
+                Production production = handle.getProduction();
+                log("[handle: " + production + "]");
+
+                tree.reduce(production);
+                for (int i = 0; i < production.getRight().size(); i++) {
+                    stateStack.remove(stateStack.size() - 1);
+                }
+
+                if (production.getLeft().equals(g.getStart()) && stateStack.size() == 1 && position == tokens.size()) {
+                    log(tree.getRoot().getLabel());
+                    return tree.getRoot();
+                }
+
+                // Without a transition, the start symbol was reduced before the end of the input
+                State target = transition(stateStack.get(stateStack.size() - 1), production.getLeft());
+                if (target == null) {
+                    throw TableParser.syntaxError(tokens, position);
+                }
+                stateStack.add(target);
+                continue;
+            }
+
+            // Shift
+            State nextState = transition(currentState, lookahead);
+            if (nextState == null) {
+                throw TableParser.syntaxError(tokens, position);
+            }
+
+            tree.shift(lookahead, tokens.get(position).text());
+            stateStack.add(nextState);
+            position++;
+        }
+    }
+
+    // Returns whether the given complete item of the given state reduces on the given lookahead, which is one of its lookaheads.
+    // It reduces, unless the state also shifts the lookahead and the precedence declarations of the grammar resolve the conflict otherwise.
+    private Grammar.Resolution resolve(State state, Item item, Symbol lookahead) {
+        Grammar.Resolution resolution = g.resolve(item.getProduction(), lookahead);
+        if (resolution == Grammar.Resolution.UNRESOLVED || !state.shifts(lookahead)) return Grammar.Resolution.REDUCE;
+        return resolution;
+    }
+
+    // Returns the state reached from the given state with the given symbol, or null if there is none.
+    // A lazy automaton makes the transition, and the state it reaches, on first request.
+    private State transition(State state, Symbol symbol) {
+        if (symbol == null) return null;
 
+        State transitionState = state.getTransitionFunction().get(symbol);
+        if (transitionState != null || kernels == null) return transitionState;
+
+        List<State> newStates = new ArrayList<>();
+        transitionState = state.makeShiftMove(symbol, kernels, g, newStates);
+        for (State newState : newStates) {
+            states.put(newState.getKey(), newState);
+        }
+        return transitionState;
+    }
+
+    // Makes all transitions of a lazy automaton that weren't needed yet, together with the states they reach.
+    private void makeRemainingStates() {
+        Queue<State> queue = new LinkedList<>(states.values());
+        while (!queue.isEmpty()) {
+            for (State newState : queue.remove().makeShiftMoves(kernels, g)) {
+                states.put(newState.getKey(), newState);
+                queue.add(newState);
+            }
+        }
+    }
+
+    // Returns true for a lazy automaton whose remaining states haven't been made yet.
+    boolean isLazy() {
+        return kernels != null && parseTable == null;
+    }
+
+    // Returns the ACTION and GOTO tables of the automaton, compiling them on first request.
+    public ParseTable getParseTable() {
+        if (parseTable == null) {
+            if (kernels != null) {
+                makeRemainingStates();
+            }
+            parseTable = new ParseTable(this);
+        }
+        return parseTable;
     }
 
     // Returns the handle for the given valid string.
@@ -163,51 +372,38 @@ public class DK1 {
 
                 for (Item item : currentState.getCompleteItems()) {
                     if (lookahead != null && !item.getLookaheads().contains(lookahead)) continue;
-                    return new Item(item.getProduction(), dotIndex, new HashSet<>());
-                }
-            }
-
-            // Make transition
-            boolean madeTransition = false;
-            for (Map.Entry<Symbol, State> entry : currentState.getTransitionFunction().entrySet()) {
-                Symbol transitionSymbol = entry.getKey();
-                State transitionState = entry.getValue();
-
-                if (transitionSymbol.equals(currentSymbol)) {
-                    dotIndex++;
-                    currentState = transitionState;
-                    currentSymbol = validStringArray.size() > dotIndex ? validStringArray.get(dotIndex) : null;
-                    madeTransition = true;
+                    Grammar.Resolution resolution = resolve(currentState, item, lookahead);
+                    if (resolution == Grammar.Resolution.ERROR) return null;
+                    if (resolution == Grammar.Resolution.REDUCE) {
+                        return new Item(item.getProduction(), dotIndex, new TerminalSet(g.getSymbolTable()));
+                    }
                     break;
                 }
             }
 
-            if (!madeTransition) {
+            // Make transition
+            State transitionState = transition(currentState, currentSymbol);
+            if (transitionState == null) {
                 return null;
             }
+            dotIndex++;
+            currentState = transitionState;
+            currentSymbol = validStringArray.size() > dotIndex ? validStringArray.get(dotIndex) : null;
         }
 
         return null;
     }
 
-    // Makes a reduction of the valid string based on the provided handle.
+    // Makes a reduction of the valid string based on the provided handle, in place. Returns the same array.
     public ArrayList<Symbol> makeReduction(ArrayList<Symbol> validStringArray, Production handle, int dotIndex) {
 
         int handleIndex = dotIndex - handle.getRight().size();
 
-        // If the find Handle, make a reduction
+        // If the find Handle, make a reduction in place: the right-hand side is replaced by the left-hand side, the array is not copied
         if (handleIndex != -1) {
-            ArrayList<Symbol> newValidStringArray = new ArrayList<>();
-
-            for (int i = 0; i < handleIndex; i++) {
-                newValidStringArray.add(validStringArray.get(i));
-            }
-            newValidStringArray.add(handle.getLeft());
-            for (int i = handleIndex + handle.getRight().size(); i < validStringArray.size(); i++) {
-                newValidStringArray.add(validStringArray.get(i));
-            }
-
-            return newValidStringArray;
+            validStringArray.subList(handleIndex, dotIndex).clear();
+            validStringArray.add(handleIndex, handle.getLeft());
+            return validStringArray;
         }
 
         return null;
@@ -217,7 +413,7 @@ public class DK1 {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("\n").append("The DK1 Automaton with ").append(states.size()).append("state : ").append("\n\n");
-        for (State state : states) {
+        for (State state : states.values()) {
             sb.append(state.toStringOnlyState());
         }
         return sb.toString();
@@ -227,8 +423,8 @@ public class DK1 {
         return start;
     }
 
-    public HashSet<State> getStates() {
-        return states;
+    public Collection<State> getStates() {
+        return states.values();
     }
 
     public Grammar getGrammar() {
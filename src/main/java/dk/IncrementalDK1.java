@@ -0,0 +1,232 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import grammar.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static util.Logger.log;
+
+// Rebuilds the DK1 automaton of an edited grammar from the automaton of the grammar before the edit.
+// The productions of both grammars are compared by their contents. A nonterminal is changed if its productions differ, or its FIRST set or nullability did.
+// The closure of a state only expands nonterminals and computes FIRST sets of symbols that occur in its items, and its shift moves only depend on its items.
+// So a state none of whose items mentions a changed nonterminal has the same closure and the same transitions under the edited grammar: it is translated
+// to the edited grammar and replays the transitions of the previous automaton. Only the other states are closed and make their shift moves again.
+// The states are found by the same breadth-first walk as a full rebuild, so states, numbering and tables are identical to those of a full rebuild.
+// The lookaheads are translated bit for bit, so nothing is reused if the edit changed the terminals of the grammar.
+public class IncrementalDK1 {
+
+    // The edited grammar.
+    private final Grammar g;
+
+    // The contents of the nonterminals changed by the edit.
+    private final Set<String> changedNonterminals;
+
+    // The productions and nonterminals of the edited grammar by the ids of equal ones of the previous grammar, null for removed ones.
+    private final Production[] productions;
+    private final Symbol[] nonterminals;
+
+    // The unaffected states of the previous automaton by the keys of their kernels, translated to the edited grammar.
+    private final Map<StateKey, State> reusable = new HashMap<>();
+    // The translated kernel keys of the states of the previous automaton.
+    private final Map<State, StateKey> kernelKeys = new IdentityHashMap<>();
+    // The translated states of the rebuilt automaton, with the previous states they were translated from.
+    private final Map<State, State> translations = new IdentityHashMap<>();
+
+    // The rebuilt automaton.
+    private final DK1 automaton;
+
+    // Rebuilds the automaton of the given grammar, reusing what's unaffected in the given automaton of a previous version of the grammar.
+    // A lazy automaton is completed first.
+    public IncrementalDK1(DK1 previous, Grammar grammar) {
+        this.g = grammar;
+        Grammar previousGrammar = previous.getGrammar();
+        if (previous.isLazy()) {
+            previous.getParseTable();
+        }
+        changedNonterminals = changedNonterminals(previousGrammar, grammar);
+
+        Map<List<String>, Production> productionsByContent = new HashMap<>();
+        for (Production production : grammar.getProductions()) {
+            productionsByContent.put(contentKey(production), production);
+        }
+        productions = new Production[previousGrammar.getProductions().size()];
+        for (Production production : previousGrammar.getProductions()) {
+            productions[production.getId()] = productionsByContent.get(contentKey(production));
+        }
+        nonterminals = new Symbol[previousGrammar.getSymbolTable().size()];
+        for (Symbol nonterminal : previousGrammar.getNonterminals()) {
+            nonterminals[nonterminal.getId()] = grammar.getSymbolTable().lookup(nonterminal.getContent(), Symbol.SymbolType.Nonterminal);
+        }
+
+        // The start state has no kernel of its own and is always made again
+        if (sameTerminals(previousGrammar, grammar)) {
+            for (State state : previous.getStates()) {
+                if (state != previous.getStart() && isUnaffected(state)) {
+                    reusable.put(kernelKey(state), state);
+                }
+            }
+        }
+
+        automaton = new DK1(grammar, this::makeShiftMoves);
+
+        log("Incremental DK1: " + changedNonterminals.size() + " changed nonterminals, " + translations.size() + " of " + automaton.getStates().size() + " states reused");
+    }
+
+    // Makes the shift moves of a state of the rebuilt automaton. A translated state replays the transitions of its previous state, any other state makes its own.
+    private List<State> makeShiftMoves(State state, Map<StateKey, State> kernels) {
+        State previousState = translations.get(state);
+        if (previousState == null) {
+            return state.makeShiftMoves(kernels, g, this::close);
+        }
+
+        // Transitions are made in the order of the symbol ids, as in ‘State.makeShiftMoves’
+        List<Map.Entry<Symbol, State>> transitions = new ArrayList<>();
+        for (Map.Entry<Symbol, State> transition : previousState.getTransitionFunction().entrySet()) {
+            transitions.add(Map.entry(translate(transition.getKey()), transition.getValue()));
+        }
+        transitions.sort(Comparator.comparingInt(transition -> transition.getKey().getId()));
+
+        List<State> newStates = new ArrayList<>();
+        for (Map.Entry<Symbol, State> transition : transitions) {
+            StateKey kernelKey = kernelKey(transition.getValue());
+            State target = kernels.get(kernelKey);
+            if (target == null) {
+                target = close(kernelKey, kernel(transition.getValue()));
+                kernels.put(kernelKey, target);
+                newStates.add(target);
+            }
+            state.getTransitionFunction().put(transition.getKey(), target);
+        }
+        return newStates;
+    }
+
+    // Makes the state of a new kernel: the translation of the unaffected previous state with the same kernel, or else the closure of the kernel.
+    private State close(StateKey kernelKey, List<Item> kernel) {
+        State previousState = reusable.get(kernelKey);
+        if (previousState == null) {
+            return State.closing(g).close(kernelKey, kernel);
+        }
+
+        State translation = new State();
+        for (Item item : previousState.getItems()) {
+            translation.addItem(new Item(productions[item.getProduction().getId()], item.getDotIndex(), item.getLookaheads().copy(g.getSymbolTable())));
+        }
+        translations.put(translation, previousState);
+        return translation;
+    }
+
+    // Returns the kernel items of the given previous state, translated to the edited grammar.
+    // Only called for unaffected states and their successors, whose kernel productions are all in the edited grammar.
+    private List<Item> kernel(State previousState) {
+        List<Item> kernel = new ArrayList<>();
+        for (Item item : previousState.getItems()) {
+            if (item.getDotIndex() > 0) {
+                kernel.add(new Item(productions[item.getProduction().getId()], item.getDotIndex(), item.getLookaheads().copy(g.getSymbolTable())));
+            }
+        }
+        return kernel;
+    }
+
+    private StateKey kernelKey(State previousState) {
+        return kernelKeys.computeIfAbsent(previousState, state -> StateKey.of(kernel(state)));
+    }
+
+    // Returns the symbol of the edited grammar with the contents of the given symbol of the previous grammar. Terminals keep their ids.
+    private Symbol translate(Symbol symbol) {
+        return symbol.isTerminal() ? g.getSymbolTable().get(symbol.getId()) : nonterminals[symbol.getId()];
+    }
+
+    // Returns the key of a symbol by its contents, which stays the same across versions of a grammar while ids may not.
+    private static String contentKey(Symbol symbol) {
+        return (symbol.isTerminal() ? "t" : "n") + symbol.getContent();
+    }
+
+    private static List<String> contentKey(Production production) {
+        List<String> result = new ArrayList<>();
+        result.add(contentKey(production.getLeft()));
+        for (Symbol symbol : production.getRight()) {
+            result.add(contentKey(symbol));
+        }
+        return result;
+    }
+
+    // Returns the nonterminals whose productions, FIRST set or nullability differ between the grammars.
+    // Nonterminals that only one of the grammars has are changed as well.
+    private static Set<String> changedNonterminals(Grammar previous, Grammar grammar) {
+        Map<String, Symbol> previousNonterminals = new HashMap<>();
+        for (Symbol nonterminal : previous.getNonterminals()) {
+            previousNonterminals.put(nonterminal.getContent(), nonterminal);
+        }
+
+        Set<String> result = new HashSet<>(previousNonterminals.keySet());
+        for (Symbol nonterminal : grammar.getNonterminals()) {
+            result.remove(nonterminal.getContent());
+        }
+        for (Symbol nonterminal : grammar.getNonterminals()) {
+            Symbol previousNonterminal = previousNonterminals.get(nonterminal.getContent());
+            if (previousNonterminal == null
+                    || !productionKeys(previous, previousNonterminal).equals(productionKeys(grammar, nonterminal))
+                    || previous.isNullable(previousNonterminal) != grammar.isNullable(nonterminal)
+                    || !previous.getFirst(previousNonterminal).toString().equals(grammar.getFirst(nonterminal).toString())) {
+                result.add(nonterminal.getContent());
+            }
+        }
+        return result;
+    }
+
+    private static List<List<String>> productionKeys(Grammar g, Symbol nonterminal) {
+        List<List<String>> result = new ArrayList<>();
+        for (Production production : g.getProductions(nonterminal)) {
+            result.add(contentKey(production));
+        }
+        return result;
+    }
+
+    // Returns true if both grammars have the same terminals with the same ids.
+    private static boolean sameTerminals(Grammar previous, Grammar grammar) {
+        SymbolTable previousTable = previous.getSymbolTable();
+        SymbolTable table = grammar.getSymbolTable();
+        if (previousTable.getTerminalCount() != table.getTerminalCount()) return false;
+        for (int id = 0; id < table.getTerminalCount(); id++) {
+            if (!previousTable.get(id).getContent().equals(table.get(id).getContent())) return false;
+        }
+        return true;
+    }
+
+    // Returns true if no item of the given state has a changed nonterminal on either side of its production.
+    private boolean isUnaffected(State state) {
+        for (Item item : state.getItems()) {
+            Production production = item.getProduction();
+            if (changedNonterminals.contains(production.getLeft().getContent())) return false;
+            for (Symbol symbol : production.getRight()) {
+                if (!symbol.isTerminal() && changedNonterminals.contains(symbol.getContent())) return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the rebuilt automaton.
+    public DK1 getAutomaton() {
+        return automaton;
+    }
+
+    // Returns the contents of the nonterminals that the edit changed.
+    public Set<String> getChangedNonterminals() {
+        return changedNonterminals;
+    }
+
+    // Returns the number of states that were translated from the previous automaton instead of being closed again.
+    public int getReusedStates() {
+        return translations.size();
+    }
+}
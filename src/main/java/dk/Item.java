@@ -2,8 +2,7 @@ package dk;
 
 import grammar.Production;
 import grammar.Symbol;
-
-import java.util.HashSet;
+import grammar.TerminalSet;
 
 // Encapsulates the concept of an item / dotted rule explained in the Sipser's book.
 public class Item {
@@ -12,11 +11,11 @@ public class Item {
     private final Production production;
     // An Integer representing the location of a corresponding dot in the dotted rule.
     private final int dotIndex;
-    // A set of ‘Symbol’ objects to represent all the lookahead symbols for this dotted rule.
-    private final HashSet<Symbol> lookaheads;
+    // A bitset over the terminal ids to represent all the lookahead symbols for this dotted rule.
+    private final TerminalSet lookaheads;
 
     // Initializes an item with the specified production, dotIndex, and lookaheads
-    public Item(Production production, int dotIndex, HashSet<Symbol> lookaheads) {
+    public Item(Production production, int dotIndex, TerminalSet lookaheads) {
         this.production = production;
         this.dotIndex = dotIndex;
         this.lookaheads = lookaheads;
@@ -27,9 +26,9 @@ public class Item {
         return production.getRight().size() == dotIndex;
     }
 
-    // Merges two sets of lookahead symbols.
-    public void addLookaheads(HashSet<Symbol> newLookaheads) {
-        lookaheads.addAll(newLookaheads);
+    // Merges two sets of lookahead symbols. Returns true if new lookaheads were added.
+    public boolean addLookaheads(TerminalSet newLookaheads) {
+        return lookaheads.addAll(newLookaheads);
     }
 
     // This function is similar to equals, but it doesn't compare lookaheads. During the lookahead calculation, it's essential to identify identical production rules and dotIndex for merging the lookaheads.
@@ -52,17 +51,7 @@ public class Item {
     @Override
     public String toString() {
 
-        StringBuilder dottedRuleString = new StringBuilder(production + " " + dotIndex);
-
-        StringBuilder lookaheadSymbolsString = new StringBuilder("  [");
-        for (Symbol symbol : lookaheads) {
-            lookaheadSymbolsString.append(symbol.getContent()).append(", ");
-        }
-        // Remove the last comma and space only if lookaheadSymbols is not empty
-        if (!lookaheads.isEmpty()) {
-            lookaheadSymbolsString.delete(lookaheadSymbolsString.length() - 2, lookaheadSymbolsString.length());
-        }
-        return dottedRuleString.append(lookaheadSymbolsString).append("]").toString();
+        return production + " " + dotIndex + "  " + lookaheads;
     }
 
     // Determines if two ‘Item’ objects are equal in all attributes: production, dotIndex, and lookaheads.
@@ -93,7 +82,7 @@ public class Item {
         return dotIndex;
     }
 
-    public HashSet<Symbol> getLookaheads() {
+    public TerminalSet getLookaheads() {
         return lookaheads;
     }
 
@@ -0,0 +1,326 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import grammar.SymbolTable;
+import grammar.TerminalSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static util.Logger.log;
+
+// Builds the LALR(1) automaton of a grammar, a much smaller alternative to the canonical LR(1) automaton built by ‘DK1’.
+// The LR(0) automaton is built first, so states with identical cores are never split. The lookaheads are computed afterwards with the relations of
+// DeRemer and Pennello (DR, reads, includes, lookback), "Efficient Computation of LALR(1) Look-Ahead Sets", 1982.
+// The result is a ‘DK1’ object, so the engines, the parse table and dk1Test work on it unchanged.
+// Merging states with identical cores can introduce reduce/reduce conflicts that the canonical automaton doesn't have. They are logged and returned by getConflicts.
+public class LALR1 {
+
+    // A ‘Grammar’ object representing the input CFG.
+    private final Grammar g;
+    private final SymbolTable symbolTable;
+
+    // Items are numbered densely: item itemBase[p] + d is production p with the dot at index d.
+    private final int[] itemBase;
+    private final int[] itemProduction;
+
+    // The LR(0) states: their items, kernel items first, and their transitions by symbol id. -1 marks a missing transition.
+    private final List<int[]> closures = new ArrayList<>();
+    private final List<int[]> transitions = new ArrayList<>();
+
+    // The nonterminal transitions (state, nonterminal) by their numbers, and the numbers by state * symbol count + nonterminal id.
+    // The start state has a transition on the start symbol even if the grammar never shifts it; its target is -1 then.
+    private final List<Integer> transitionSources = new ArrayList<>();
+    private final List<Symbol> transitionSymbols = new ArrayList<>();
+    private final Map<Long, Integer> transitionNumbers = new HashMap<>();
+
+    // The built automaton and its reduce/reduce conflicts.
+    private final DK1 automaton;
+    private final List<ConflictAnalyzer.Conflict> conflicts;
+
+    // Builds the LALR(1) automaton for the given CFG, grammar.
+    public LALR1(Grammar grammar) {
+        this.g = grammar;
+        this.symbolTable = grammar.getSymbolTable();
+
+        List<Production> productions = grammar.getProductions();
+        itemBase = new int[productions.size()];
+        int itemCount = 0;
+        for (Production production : productions) {
+            itemBase[production.getId()] = itemCount;
+            itemCount += production.getRight().size() + 1;
+        }
+        itemProduction = new int[itemCount];
+        for (Production production : productions) {
+            Arrays.fill(itemProduction, itemBase[production.getId()], itemBase[production.getId()] + production.getRight().size() + 1, production.getId());
+        }
+
+        buildLR0();
+        numberNonterminalTransitions();
+
+        // Follow(p, A) = Read(p, A) ∪ ⋃{ Follow(p', B) | (p, A) includes (p', B) }, Read(p, A) = DR(p, A) ∪ ⋃{ Read(r, C) | (p, A) reads (r, C) }
+        List<List<Integer>> includes = new ArrayList<>();
+        Map<Long, List<Integer>> lookback = new HashMap<>();
+        computeIncludesAndLookback(includes, lookback);
+        TerminalSet[] read = digraph(computeReads(), computeDirectReads());
+        TerminalSet[] follow = digraph(includes, read);
+
+        List<State> states = buildStates(lookback, follow);
+        automaton = new DK1(grammar, states);
+        conflicts = new ConflictAnalyzer(automaton).getConflicts().stream()
+                .filter(conflict -> conflict.kind() == ConflictAnalyzer.Kind.REDUCE_REDUCE)
+                .toList();
+
+        log("LALR(1) automaton: " + states.size() + " states, " + conflicts.size() + " reduce/reduce conflicts");
+        for (ConflictAnalyzer.Conflict conflict : conflicts) {
+            log(conflict);
+        }
+    }
+
+    // Returns the symbol after the dot of the given item, or null if the item is complete.
+    private Symbol symbolAfterDot(int item) {
+        List<Symbol> right = g.getProductions().get(itemProduction[item]).getRight();
+        int dot = item - itemBase[itemProduction[item]];
+        return dot < right.size() ? right.get(dot) : null;
+    }
+
+    // Builds the LR(0) states breadth-first from the start state. Transitions are made in the order of the symbol ids, so the numbering of the states is deterministic.
+    private void buildLR0() {
+        Map<List<Integer>, Integer> stateNumbers = new HashMap<>();
+
+        List<Integer> startKernel = new ArrayList<>();
+        for (Production production : g.getProductions(g.getStart())) {
+            startKernel.add(itemBase[production.getId()]);
+        }
+        stateNumbers.put(startKernel, 0);
+        closures.add(closure(startKernel));
+
+        for (int state = 0; state < closures.size(); state++) {
+            // Kernels of the successors by symbol id
+            Map<Integer, List<Integer>> kernels = new HashMap<>();
+            for (int item : closures.get(state)) {
+                Symbol symbol = symbolAfterDot(item);
+                if (symbol == null) continue;
+                kernels.computeIfAbsent(symbol.getId(), k -> new ArrayList<>()).add(item + 1);
+            }
+
+            int[] row = new int[symbolTable.size()];
+            Arrays.fill(row, -1);
+            for (int symbol = 0; symbol < row.length; symbol++) {
+                List<Integer> kernel = kernels.get(symbol);
+                if (kernel == null) continue;
+                kernel.sort(null);
+
+                Integer target = stateNumbers.get(kernel);
+                if (target == null) {
+                    target = closures.size();
+                    stateNumbers.put(kernel, target);
+                    closures.add(closure(kernel));
+                }
+                row[symbol] = target;
+            }
+            transitions.add(row);
+        }
+    }
+
+    // Returns the kernel items followed by the items at the start of the productions of every nonterminal after a dot.
+    private int[] closure(List<Integer> kernel) {
+        List<Integer> items = new ArrayList<>(kernel);
+        boolean[] added = new boolean[itemProduction.length];
+        for (int item : kernel) {
+            added[item] = true;
+        }
+        boolean[] expanded = new boolean[symbolTable.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Symbol symbol = symbolAfterDot(items.get(i));
+            if (symbol == null || symbol.isTerminal() || expanded[symbol.getId()]) continue;
+            expanded[symbol.getId()] = true;
+            for (Production production : g.getProductions(symbol)) {
+                int item = itemBase[production.getId()];
+                if (!added[item]) {
+                    added[item] = true;
+                    items.add(item);
+                }
+            }
+        }
+        return items.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private long transitionKey(int state, Symbol symbol) {
+        return (long) state * symbolTable.size() + symbol.getId();
+    }
+
+    private void numberNonterminalTransitions() {
+        addNonterminalTransition(0, g.getStart());
+        for (int state = 0; state < transitions.size(); state++) {
+            for (int symbol = symbolTable.getTerminalCount(); symbol < symbolTable.size(); symbol++) {
+                if (transitions.get(state)[symbol] != -1) {
+                    addNonterminalTransition(state, symbolTable.get(symbol));
+                }
+            }
+        }
+    }
+
+    private void addNonterminalTransition(int state, Symbol nonterminal) {
+        if (transitionNumbers.putIfAbsent(transitionKey(state, nonterminal), transitionSources.size()) == null) {
+            transitionSources.add(state);
+            transitionSymbols.add(nonterminal);
+        }
+    }
+
+    private int target(int transition) {
+        return transitions.get(transitionSources.get(transition))[transitionSymbols.get(transition).getId()];
+    }
+
+    // DR(p, A): the terminals shifted right after the transition. The start symbol is followed by every terminal, like the start items of ‘DK1’.
+    private TerminalSet[] computeDirectReads() {
+        TerminalSet[] directReads = new TerminalSet[transitionSources.size()];
+        for (int t = 0; t < directReads.length; t++) {
+            directReads[t] = new TerminalSet(symbolTable);
+            int target = target(t);
+            if (target == -1) continue;
+            for (int terminal = 0; terminal < symbolTable.getTerminalCount(); terminal++) {
+                if (transitions.get(target)[terminal] != -1) {
+                    directReads[t].add(symbolTable.get(terminal));
+                }
+            }
+        }
+        directReads[transitionNumbers.get(transitionKey(0, g.getStart()))].addAll(g.allTerminals());
+        return directReads;
+    }
+
+    // (p, A) reads (r, C) if p goes to r on A, and r has a transition on the nullable nonterminal C.
+    private List<List<Integer>> computeReads() {
+        List<List<Integer>> reads = new ArrayList<>();
+        for (int t = 0; t < transitionSources.size(); t++) {
+            List<Integer> successors = new ArrayList<>();
+            int target = target(t);
+            if (target != -1) {
+                for (int symbol = symbolTable.getTerminalCount(); symbol < symbolTable.size(); symbol++) {
+                    if (transitions.get(target)[symbol] != -1 && g.isNullable(symbolTable.get(symbol))) {
+                        successors.add(transitionNumbers.get(transitionKey(target, symbolTable.get(symbol))));
+                    }
+                }
+            }
+            reads.add(successors);
+        }
+        return reads;
+    }
+
+    // Walks every production B -> ω from the source p' of every transition (p', B):
+    // (p, A) includes (p', B) if ω = βAγ, γ is nullable and p' goes to p on β.
+    // Every item of B -> ω on the way looks back to (p', B); its lookaheads are the union of Follow over the transitions it looks back to.
+    // The lookback is keyed by state * item count + item.
+    private void computeIncludesAndLookback(List<List<Integer>> includes, Map<Long, List<Integer>> lookback) {
+        for (int t = 0; t < transitionSources.size(); t++) {
+            includes.add(new ArrayList<>());
+        }
+
+        for (int t = 0; t < transitionSources.size(); t++) {
+            for (Production production : g.getProductions(transitionSymbols.get(t))) {
+                List<Symbol> right = production.getRight();
+
+                // nullableFrom[i] is true if right[i..] derives the empty string
+                boolean[] nullableFrom = new boolean[right.size() + 1];
+                nullableFrom[right.size()] = true;
+                for (int i = right.size() - 1; i >= 0; i--) {
+                    nullableFrom[i] = nullableFrom[i + 1] && g.isNullable(right.get(i));
+                }
+
+                int state = transitionSources.get(t);
+                for (int dot = 0; dot <= right.size(); dot++) {
+                    long key = (long) state * itemProduction.length + itemBase[production.getId()] + dot;
+                    lookback.computeIfAbsent(key, k -> new ArrayList<>()).add(t);
+                    if (dot == right.size()) break;
+
+                    Symbol symbol = right.get(dot);
+                    if (!symbol.isTerminal() && nullableFrom[dot + 1]) {
+                        includes.get(transitionNumbers.get(transitionKey(state, symbol))).add(t);
+                    }
+                    state = transitions.get(state)[symbol.getId()];
+                }
+            }
+        }
+    }
+
+    // Computes F(x) = initial(x) ∪ ⋃{ F(y) | x R y } for every x with the digraph algorithm of DeRemer and Pennello.
+    // Strongly connected components of R are found on the way, and all their members share the same set.
+    private static TerminalSet[] digraph(List<List<Integer>> relation, TerminalSet[] initial) {
+        TerminalSet[] result = new TerminalSet[initial.length];
+        int[] depth = new int[initial.length];
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        for (int x = 0; x < initial.length; x++) {
+            if (depth[x] == 0) {
+                traverse(x, relation, initial, result, depth, stack);
+            }
+        }
+        return result;
+    }
+
+    private static void traverse(int x, List<List<Integer>> relation, TerminalSet[] initial, TerminalSet[] result, int[] depth, ArrayDeque<Integer> stack) {
+        stack.push(x);
+        int d = stack.size();
+        depth[x] = d;
+        result[x] = initial[x].copy();
+
+        for (int y : relation.get(x)) {
+            if (depth[y] == 0) {
+                traverse(y, relation, initial, result, depth, stack);
+            }
+            depth[x] = Math.min(depth[x], depth[y]);
+            result[x].addAll(result[y]);
+        }
+
+        if (depth[x] == d) {
+            int top;
+            do {
+                top = stack.pop();
+                depth[top] = Integer.MAX_VALUE;
+                result[top] = result[x];
+            } while (top != x);
+        }
+    }
+
+    // Turns the LR(0) states into ‘State’ objects whose items carry their LALR(1) lookaheads.
+    private List<State> buildStates(Map<Long, List<Integer>> lookback, TerminalSet[] follow) {
+        List<State> states = new ArrayList<>();
+        for (int s = 0; s < closures.size(); s++) {
+            State state = new State();
+            for (int item : closures.get(s)) {
+                TerminalSet lookaheads = new TerminalSet(symbolTable);
+                for (int t : lookback.getOrDefault((long) s * itemProduction.length + item, List.of())) {
+                    lookaheads.addAll(follow[t]);
+                }
+                Production production = g.getProductions().get(itemProduction[item]);
+                state.addItem(new Item(production, item - itemBase[production.getId()], lookaheads));
+            }
+            states.add(state);
+        }
+
+        for (int s = 0; s < states.size(); s++) {
+            int[] row = transitions.get(s);
+            for (int symbol = 0; symbol < row.length; symbol++) {
+                if (row[symbol] != -1) {
+                    states.get(s).getTransitionFunction().put(symbolTable.get(symbol), states.get(row[symbol]));
+                }
+            }
+        }
+        return states;
+    }
+
+    // Returns the automaton. Its first state is the start state.
+    public DK1 getAutomaton() {
+        return automaton;
+    }
+
+    // Returns the reduce/reduce conflicts of the automaton. For an LR(1) grammar, these are exactly the conflicts introduced by merging states.
+    public List<ConflictAnalyzer.Conflict> getConflicts() {
+        return conflicts;
+    }
+}
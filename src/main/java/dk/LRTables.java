@@ -0,0 +1,49 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Symbol;
+import lexer.Token;
+import tree.DTE;
+
+import java.util.ArrayList;
+
+// ACTION and GOTO tables of an LR automaton, as read by ‘TableParser’. Entries are encoded as in ‘ParseTable’.
+// States are numbered from 0, the start state. Terminals are numbered by their symbol ids, nonterminals by their symbol ids minus the number of terminals.
+public interface LRTables {
+
+    // Returns the ACTION entry of the given state and terminal number. The number of terminals stands for the end of the input.
+    int action(int state, int terminal);
+
+    // Returns the GOTO entry of the given state and nonterminal number, or -1 if there is none.
+    int goTo(int state, int nonterminal);
+
+    // Returns the id of the unit production that the given state reduces by whatever the lookahead is, or -1 if there is none.
+    int unitReduction(int state);
+
+    int stateCount();
+
+    // The terminals by their numbers.
+    Symbol[] getTerminals();
+
+    Grammar getGrammar();
+
+    // Returns a derivation tree for the given valid string.
+    default DTE parseString(String validString) {
+        return parse(getGrammar().tokenize(validString));
+    }
+
+    // Returns a derivation tree for the given tokens, collapsing unit chains.
+    default DTE parse(ArrayList<Token> tokens) {
+        return parse(tokens, true);
+    }
+
+    // Returns a derivation tree for the given tokens, see ‘TableParser’.
+    default DTE parse(ArrayList<Token> tokens, boolean collapseUnitChains) {
+        return parse(tokens, collapseUnitChains, false);
+    }
+
+    // Returns a derivation tree for the given tokens, as above. With 'dropLayout', the whitespace terminals get no leaves, see ‘TreeBuilder’.
+    default DTE parse(ArrayList<Token> tokens, boolean collapseUnitChains, boolean dropLayout) {
+        return TableParser.parse(this, tokens, collapseUnitChains, dropLayout);
+    }
+}
@@ -0,0 +1,291 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import grammar.SymbolTable;
+import grammar.TerminalSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static util.Logger.log;
+
+// Builds a minimal LR(1) automaton of a grammar with the weak compatibility test of Pager, "A Practical General Method for Constructing LR(k) Parsers", 1977.
+// States are made as in the canonical construction, but a new kernel is merged into an existing state with the same core if their lookaheads are weakly compatible:
+// for every two kernel items i != j, either L(i) ∩ L'(j) and L'(i) ∩ L(j) are both empty, or L(i) ∩ L(j) or L'(i) ∩ L'(j) is not.
+// Such a merge never introduces a reduce/reduce conflict, so the automaton accepts exactly the language of the canonical LR(1) automaton, with about as many states as LALR(1).
+// A state whose lookaheads grew by a merge is expanded again, which may redirect its transitions; states that are no longer reachable are dropped at the end.
+// The result is a ‘DK1’ object, so the engines, the parse table and dk1Test work on it unchanged.
+public class PagerLR1 {
+
+    // A ‘Grammar’ object representing the input CFG.
+    private final Grammar g;
+    private final SymbolTable symbolTable;
+
+    // Items are numbered densely: item itemBase[p] + d is production p with the dot at index d.
+    private final int[] itemBase;
+    private final int[] itemProduction;
+
+    // The states under construction: their kernel items in ascending order, the lookaheads of the kernel items, and their transitions by symbol id.
+    // -1 marks a missing transition.
+    private final List<int[]> kernels = new ArrayList<>();
+    private final List<TerminalSet[]> kernelLookaheads = new ArrayList<>();
+    private final List<int[]> transitions = new ArrayList<>();
+    // The states by their cores, i.e. by their kernel items without lookaheads.
+    private final Map<List<Integer>, List<Integer>> statesByCore = new HashMap<>();
+
+    // The built automaton.
+    private final DK1 automaton;
+
+    // Builds the minimal LR(1) automaton for the given CFG, grammar.
+    public PagerLR1(Grammar grammar) {
+        this.g = grammar;
+        this.symbolTable = grammar.getSymbolTable();
+
+        List<Production> productions = grammar.getProductions();
+        itemBase = new int[productions.size()];
+        int itemCount = 0;
+        for (Production production : productions) {
+            itemBase[production.getId()] = itemCount;
+            itemCount += production.getRight().size() + 1;
+        }
+        itemProduction = new int[itemCount];
+        for (Production production : productions) {
+            Arrays.fill(itemProduction, itemBase[production.getId()], itemBase[production.getId()] + production.getRight().size() + 1, production.getId());
+        }
+
+        build();
+        List<State> states = buildStates();
+        automaton = new DK1(grammar, states);
+
+        log("Minimal LR(1) automaton: " + states.size() + " states");
+    }
+
+    // Returns the symbol after the dot of the given item, or null if the item is complete.
+    private Symbol symbolAfterDot(int item) {
+        List<Symbol> right = g.getProductions().get(itemProduction[item]).getRight();
+        int dot = item - itemBase[itemProduction[item]];
+        return dot < right.size() ? right.get(dot) : null;
+    }
+
+    // Expands states from a worklist until no state changes. A state is queued when it's made and again whenever its lookaheads grow.
+    private void build() {
+        int[] startKernel = g.getProductions(g.getStart()).stream().mapToInt(production -> itemBase[production.getId()]).sorted().toArray();
+        TerminalSet[] startLookaheads = new TerminalSet[startKernel.length];
+        for (int i = 0; i < startKernel.length; i++) {
+            startLookaheads[i] = g.allTerminals();
+        }
+
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        List<Boolean> queued = new ArrayList<>();
+        worklist.add(addState(startKernel, startLookaheads));
+        queued.add(true);
+
+        while (!worklist.isEmpty()) {
+            int state = worklist.poll();
+            queued.set(state, false);
+
+            // Kernels of the successors by symbol id, with their lookaheads by item
+            Map<Integer, Map<Integer, TerminalSet>> successors = new HashMap<>();
+            Map<Integer, TerminalSet> closure = closure(kernels.get(state), kernelLookaheads.get(state));
+            for (Map.Entry<Integer, TerminalSet> entry : closure.entrySet()) {
+                Symbol symbol = symbolAfterDot(entry.getKey());
+                if (symbol == null) continue;
+                successors.computeIfAbsent(symbol.getId(), k -> new HashMap<>()).put(entry.getKey() + 1, entry.getValue());
+            }
+
+            int[] row = transitions.get(state);
+            for (int symbol = 0; symbol < row.length; symbol++) {
+                Map<Integer, TerminalSet> successor = successors.get(symbol);
+                if (successor == null) continue;
+
+                int[] kernel = successor.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                TerminalSet[] lookaheads = new TerminalSet[kernel.length];
+                for (int i = 0; i < kernel.length; i++) {
+                    lookaheads[i] = successor.get(kernel[i]);
+                }
+
+                int target = findCompatibleState(kernel, lookaheads);
+                boolean changed;
+                if (target == -1) {
+                    target = addState(kernel, lookaheads);
+                    queued.add(false);
+                    changed = true;
+                } else {
+                    changed = merge(target, lookaheads);
+                }
+                if (changed && !queued.get(target)) {
+                    queued.set(target, true);
+                    worklist.add(target);
+                }
+                row[symbol] = target;
+            }
+        }
+    }
+
+    // Adds a state with the given kernel and a copy of the given lookaheads. Its transitions are unknown until it's expanded.
+    private int addState(int[] kernel, TerminalSet[] lookaheads) {
+        int state = kernels.size();
+        TerminalSet[] copy = new TerminalSet[lookaheads.length];
+        for (int i = 0; i < lookaheads.length; i++) {
+            copy[i] = lookaheads[i].copy();
+        }
+        kernels.add(kernel);
+        kernelLookaheads.add(copy);
+        int[] row = new int[symbolTable.size()];
+        Arrays.fill(row, -1);
+        transitions.add(row);
+        statesByCore.computeIfAbsent(core(kernel), k -> new ArrayList<>()).add(state);
+        return state;
+    }
+
+    private static List<Integer> core(int[] kernel) {
+        return Arrays.stream(kernel).boxed().toList();
+    }
+
+    // Returns a state with the given core whose lookaheads already contain the given ones or are weakly compatible with them, or -1 if there is none.
+    private int findCompatibleState(int[] kernel, TerminalSet[] lookaheads) {
+        List<Integer> candidates = statesByCore.getOrDefault(core(kernel), List.of());
+        for (int candidate : candidates) {
+            if (contains(kernelLookaheads.get(candidate), lookaheads)) return candidate;
+        }
+        for (int candidate : candidates) {
+            if (weaklyCompatible(kernelLookaheads.get(candidate), lookaheads)) return candidate;
+        }
+        return -1;
+    }
+
+    private static boolean contains(TerminalSet[] existing, TerminalSet[] lookaheads) {
+        for (int i = 0; i < existing.length; i++) {
+            TerminalSet union = existing[i].copy();
+            if (union.addAll(lookaheads[i])) return false;
+        }
+        return true;
+    }
+
+    // Pager's weak compatibility of the lookaheads L of an existing state and L' of a new kernel with the same core.
+    private static boolean weaklyCompatible(TerminalSet[] existing, TerminalSet[] lookaheads) {
+        for (int i = 0; i < existing.length; i++) {
+            for (int j = i + 1; j < existing.length; j++) {
+                boolean crossed = existing[i].intersects(lookaheads[j]) || lookaheads[i].intersects(existing[j]);
+                if (crossed && !existing[i].intersects(existing[j]) && !lookaheads[i].intersects(lookaheads[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Adds the given lookaheads to the kernel of the given state. Returns true if they grew.
+    private boolean merge(int state, TerminalSet[] lookaheads) {
+        boolean changed = false;
+        TerminalSet[] existing = kernelLookaheads.get(state);
+        for (int i = 0; i < existing.length; i++) {
+            changed = existing[i].addAll(lookaheads[i]) || changed;
+        }
+        return changed;
+    }
+
+    // Returns the items of the LR(1) closure of the given kernel with their lookaheads, kernel items first.
+    // A worklist holds the items whose lookaheads still have to be passed on, as in the closure of ‘State’.
+    private Map<Integer, TerminalSet> closure(int[] kernel, TerminalSet[] lookaheads) {
+        Map<Integer, TerminalSet> items = new LinkedHashMap<>();
+        ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        Set<Integer> queued = new HashSet<>();
+        for (int i = 0; i < kernel.length; i++) {
+            items.put(kernel[i], lookaheads[i].copy());
+            worklist.add(kernel[i]);
+            queued.add(kernel[i]);
+        }
+
+        while (!worklist.isEmpty()) {
+            int item = worklist.poll();
+            queued.remove(item);
+            Symbol symbol = symbolAfterDot(item);
+            if (symbol == null || symbol.isTerminal()) continue;
+
+            Production production = g.getProductions().get(itemProduction[item]);
+            TerminalSet first = g.first(production.getRight(), item - itemBase[production.getId()] + 1, items.get(item));
+            for (Production next : g.getProductions(symbol)) {
+                int start = itemBase[next.getId()];
+                TerminalSet existing = items.get(start);
+                if (existing == null) {
+                    items.put(start, first.copy());
+                } else if (!existing.addAll(first)) {
+                    continue;
+                }
+                if (queued.add(start)) {
+                    worklist.add(start);
+                }
+            }
+        }
+        return items;
+    }
+
+    // Turns the states that are reachable from the start state into ‘State’ objects, numbered breadth-first with transitions in the order of the symbol ids.
+    // States whose kernels ended up with equal lookaheads are equivalent; only the first of them is kept.
+    private List<State> buildStates() {
+        int[] representatives = new int[kernels.size()];
+        Map<List<Object>, Integer> statesByKernel = new HashMap<>();
+        for (int s = 0; s < kernels.size(); s++) {
+            List<Object> kernel = List.of(core(kernels.get(s)), Arrays.asList(kernelLookaheads.get(s)));
+            representatives[s] = statesByKernel.computeIfAbsent(kernel, k -> statesByKernel.size());
+        }
+        List<Integer> firstStates = new ArrayList<>(statesByKernel.size());
+        for (int s = 0; s < kernels.size(); s++) {
+            if (representatives[s] == firstStates.size()) firstStates.add(s);
+        }
+        for (int s = 0; s < kernels.size(); s++) {
+            representatives[s] = firstStates.get(representatives[s]);
+        }
+
+        int[] numbers = new int[kernels.size()];
+        Arrays.fill(numbers, -1);
+        List<Integer> order = new ArrayList<>();
+        numbers[0] = 0;
+        order.add(0);
+        for (int i = 0; i < order.size(); i++) {
+            for (int target : transitions.get(order.get(i))) {
+                if (target == -1) continue;
+                target = representatives[target];
+                if (numbers[target] == -1) {
+                    numbers[target] = order.size();
+                    order.add(target);
+                }
+            }
+        }
+
+        List<State> states = new ArrayList<>();
+        for (int s : order) {
+            State state = new State();
+            for (Map.Entry<Integer, TerminalSet> entry : closure(kernels.get(s), kernelLookaheads.get(s)).entrySet()) {
+                Production production = g.getProductions().get(itemProduction[entry.getKey()]);
+                state.addItem(new Item(production, entry.getKey() - itemBase[production.getId()], entry.getValue()));
+            }
+            states.add(state);
+        }
+
+        for (int i = 0; i < order.size(); i++) {
+            int[] row = transitions.get(order.get(i));
+            for (int symbol = 0; symbol < row.length; symbol++) {
+                if (row[symbol] != -1) {
+                    states.get(i).getTransitionFunction().put(symbolTable.get(symbol), states.get(numbers[representatives[row[symbol]]]));
+                }
+            }
+        }
+        return states;
+    }
+
+    // Returns the automaton. Its first state is the start state.
+    public DK1 getAutomaton() {
+        return automaton;
+    }
+}
@@ -0,0 +1,225 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import grammar.SymbolTable;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The ACTION and GOTO tables of a DK1 automaton, compiled into dense primitive arrays.
+// States are numbered in the order in which the automaton discovered them. Terminals are numbered by their symbol ids, nonterminals by their symbol ids minus the number of terminals.
+// The ACTION table has one extra column for the end of the input.
+// Parsing with the tables is plain array indexing: no hashing and no symbol comparisons per step.
+// The tables are int buffers, so that tables loaded by ‘ParseTableCache’ are used directly from the memory-mapped file.
+public class ParseTable implements LRTables {
+
+    // Encoding of the ACTION entries. Shifts are positive, reductions and accepts are negative.
+    // ERROR:   0
+    // SHIFT:   target state + 1
+    // REDUCE:  -(production id + 1)
+    // ACCEPT:  -(number of productions + production id + 1), only at the end of the input: reduces by a production of the start symbol, and ends the parse
+    //          if that leaves state 0 alone on the stack. Otherwise it is an ordinary reduction, as the start symbol may occur on right-hand sides.
+    public static final int ERROR = 0;
+
+    // A ‘Grammar’ object representing the CFG of the tables.
+    private final Grammar g;
+
+    // The terminals and nonterminals by their numbers.
+    private final Symbol[] terminals;
+    private final Symbol[] nonterminals;
+
+    private final int stateCount;
+    // The ACTION table, row-major: action[state * (terminals.length + 1) + terminal]. The last column is the end of the input.
+    private final IntBuffer action;
+    // The GOTO table, row-major: gotoTable[state * nonterminals.length + nonterminal]. -1 marks a missing transition.
+    private final IntBuffer gotoTable;
+    // For every state whose only action is a reduction by a unit production, the id of that production; -1 for all other states.
+    private final int[] unitReductions;
+
+    // Compiles the tables of the given automaton, which must have all its states: ‘DK1.getParseTable’ completes a lazy automaton first.
+    // Where a state both shifts and reduces on a terminal, the reduction wins unless the precedence declarations of the grammar resolve the conflict otherwise,
+    // as in the engines of DK1. At the end of the input any complete item reduces.
+    ParseTable(DK1 dk1) {
+        this.g = dk1.getGrammar();
+
+        terminals = terminals(g);
+        nonterminals = nonterminals(g);
+
+        // Number the states
+        List<State> states = new ArrayList<>(dk1.getStates());
+        Map<State, Integer> stateNumbers = new IdentityHashMap<>();
+        for (State state : states) {
+            stateNumbers.put(state, stateNumbers.size());
+        }
+        stateCount = states.size();
+
+        int columns = terminals.length + 1;
+        int[] action = new int[stateCount * columns];
+        int[] gotoTable = new int[stateCount * nonterminals.length];
+        Arrays.fill(gotoTable, -1);
+
+        for (State state : states) {
+            int row = stateNumbers.get(state);
+
+            // Shifts and gotos
+            for (Map.Entry<Symbol, State> entry : state.getTransitionFunction().entrySet()) {
+                Symbol symbol = entry.getKey();
+                int target = stateNumbers.get(entry.getValue());
+                if (symbol.isTerminal()) {
+                    action[row * columns + symbol.getId()] = target + 1;
+                } else {
+                    gotoTable[row * nonterminals.length + symbol.getId() - terminals.length] = target;
+                }
+            }
+
+            // Reductions override shifts unless the precedences say otherwise; the first complete item claims a lookahead
+            HashSet<Integer> reduced = new HashSet<>();
+            for (Item item : state.getCompleteItems()) {
+                int reduction = -(item.getProduction().getId() + 1);
+                for (Symbol lookahead : item.getLookaheads()) {
+                    int column = lookahead.getId();
+                    if (reduced.add(column)) {
+                        action[row * columns + column] = resolve(action[row * columns + column], reduction, item.getProduction(), lookahead);
+                    }
+                }
+                if (reduced.add(terminals.length)) {
+                    action[row * columns + terminals.length] = encodeEndReduction(item.getProduction());
+                }
+            }
+        }
+
+        this.action = IntBuffer.wrap(action);
+        this.gotoTable = IntBuffer.wrap(gotoTable);
+
+        unitReductions = findUnitReductions();
+    }
+
+    // Wraps previously compiled tables of the given grammar. The symbol numbering only depends on the grammar, so it is recomputed.
+    ParseTable(Grammar g, int stateCount, IntBuffer action, IntBuffer gotoTable) {
+        this.g = g;
+
+        terminals = terminals(g);
+        nonterminals = nonterminals(g);
+
+        this.stateCount = stateCount;
+        this.action = action;
+        this.gotoTable = gotoTable;
+
+        unitReductions = findUnitReductions();
+    }
+
+    // Finds the states whose ACTION row holds a single reduction by a unit production, and errors. Such a state reduces whatever the lookahead is.
+    private int[] findUnitReductions() {
+        int[] result = new int[stateCount];
+        int productionCount = g.getProductions().size();
+        for (int state = 0; state < stateCount; state++) {
+            int reduction = ERROR;
+            for (int terminal = 0; terminal <= terminals.length; terminal++) {
+                int entry = action(state, terminal);
+                if (entry == ERROR) continue;
+                if (entry > 0 || (reduction != ERROR && entry != reduction)) {
+                    reduction = ERROR;
+                    break;
+                }
+                reduction = entry;
+            }
+            int production = -reduction - 1;
+            boolean unit = reduction != ERROR && production < productionCount && g.getProductions().get(production).isUnit();
+            result[state] = unit ? production : -1;
+        }
+        return result;
+    }
+
+    // Returns the ACTION entry for a reduction on the given lookahead, where the entry so far is the given one. A shift only stays if the precedences prefer it,
+    // a nonassociative operator makes the entry an error.
+    private int resolve(int entry, int reduction, Production production, Symbol lookahead) {
+        if (entry <= 0) return reduction;
+        return switch (g.resolve(production, lookahead)) {
+            case SHIFT -> entry;
+            case ERROR -> ERROR;
+            case REDUCE, UNRESOLVED -> reduction;
+        };
+    }
+
+    // Encodes a reduction at the end of the input, which accepts for a production of the start symbol.
+    private int encodeEndReduction(Production production) {
+        if (production.getLeft().equals(g.getStart())) {
+            return -(g.getProductions().size() + production.getId() + 1);
+        }
+        return -(production.getId() + 1);
+    }
+
+    private static Symbol[] terminals(Grammar g) {
+        SymbolTable symbolTable = g.getSymbolTable();
+        Symbol[] result = new Symbol[symbolTable.getTerminalCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = symbolTable.get(i);
+        }
+        return result;
+    }
+
+    private static Symbol[] nonterminals(Grammar g) {
+        SymbolTable symbolTable = g.getSymbolTable();
+        Symbol[] result = new Symbol[symbolTable.getNonterminalCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = symbolTable.get(symbolTable.getTerminalCount() + i);
+        }
+        return result;
+    }
+
+    // Returns the ACTION entry of the given state and terminal number. The number of terminals stands for the end of the input.
+    @Override
+    public int action(int state, int terminal) {
+        return action.get(state * (terminals.length + 1) + terminal);
+    }
+
+    // Returns the GOTO entry of the given state and nonterminal number, or -1 if there is none.
+    @Override
+    public int goTo(int state, int nonterminal) {
+        return gotoTable.get(state * nonterminals.length + nonterminal);
+    }
+
+    // Returns the id of the unit production that the given state reduces by whatever the lookahead is, or -1 if there is none.
+    @Override
+    public int unitReduction(int state) {
+        return unitReductions[state];
+    }
+
+    @Override
+    public int stateCount() {
+        return stateCount;
+    }
+
+    IntBuffer getAction() {
+        return action;
+    }
+
+    IntBuffer getGotoTable() {
+        return gotoTable;
+    }
+
+    int[] getUnitReductions() {
+        return unitReductions;
+    }
+
+    @Override
+    public Symbol[] getTerminals() {
+        return terminals;
+    }
+
+    public Symbol[] getNonterminals() {
+        return nonterminals;
+    }
+
+    @Override
+    public Grammar getGrammar() {
+        return g;
+    }
+}
@@ -0,0 +1,148 @@
+package dk;
+
+import grammar.Grammar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static util.Logger.log;
+
+// Persists the compiled ‘ParseTable’ of a grammar in a compact binary file, so that later runs don't have to build the DK1 automaton.
+// The file is keyed by a SHA-256 fingerprint of 'Grammar.txt', 'Terminals.txt' and the level of the grammar. It is memory-mapped on load and the tables are used directly from the mapping.
+//
+// File layout, little-endian:
+// magic "DK1T" | format version | fingerprint (32 bytes) | state count | terminal count | nonterminal count | production count | ACTION table | GOTO table
+public class ParseTableCache {
+
+    private static final int MAGIC = 0x54314B44; // "DK1T"
+    // Increase whenever the layout of the file or the encoding of the tables changes.
+    private static final int FORMAT_VERSION = 3;
+    private static final int FINGERPRINT_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + 4 + FINGERPRINT_LENGTH + 4 * 4;
+
+    // Returns the tables of the grammar read from the given files.
+    // The tables are loaded from the cache file when its fingerprint matches the grammar files, otherwise the automaton is built, checked, and the cache file is rewritten.
+    public static ParseTable loadOrBuild(Grammar g, String grammarFilePath, String terminalsFilePath, Path cacheFilePath) throws IOException {
+        byte[] fingerprint = fingerprint(g, grammarFilePath, terminalsFilePath);
+
+        ParseTable parseTable = load(g, cacheFilePath, fingerprint);
+        if (parseTable != null) {
+            log("Parse tables loaded from " + cacheFilePath);
+            return parseTable;
+        }
+
+        log("Parse table cache is missing or outdated, building the DK1 automaton");
+        DK1 dk1 = new DK1(g, ForkJoinPool.commonPool());
+
+        log("number of states: " + dk1.getStates().size());
+        log("-----------------------");
+        log("DK1 test passed = " + dk1.dk1Test());
+        log("-----------------------");
+        log("\n");
+
+        parseTable = dk1.getParseTable();
+        save(parseTable, cacheFilePath, fingerprint);
+        return parseTable;
+    }
+
+    // Returns the SHA-256 digest of the contents of the grammar and terminals files, and of the level of the grammar read from them.
+    public static byte[] fingerprint(Grammar g, String grammarFilePath, String terminalsFilePath) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(Path.of(grammarFilePath)));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(Path.of(terminalsFilePath)));
+            digest.update((byte) 0);
+            digest.update(g.getLevel().name().getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Maps the cache file and returns its tables, or null if the file doesn't exist, has another format version, or was written for another grammar.
+    public static ParseTable load(Grammar g, Path cacheFilePath, byte[] fingerprint) throws IOException {
+        if (!Files.isRegularFile(cacheFilePath) || Files.size(cacheFilePath) < HEADER_LENGTH) return null;
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(cacheFilePath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) return null;
+
+        byte[] storedFingerprint = new byte[FINGERPRINT_LENGTH];
+        buffer.get(storedFingerprint);
+        if (!Arrays.equals(storedFingerprint, fingerprint)) return null;
+
+        int stateCount = buffer.getInt();
+        int terminalCount = buffer.getInt();
+        int nonterminalCount = buffer.getInt();
+        int productionCount = buffer.getInt();
+        if (terminalCount != g.getTerminals().size() || nonterminalCount != g.getNonterminals().size() || productionCount != g.getProductions().size()) {
+            return null;
+        }
+
+        int actionLength = stateCount * (terminalCount + 1);
+        int gotoLength = stateCount * nonterminalCount;
+        if (buffer.remaining() != 4L * (actionLength + gotoLength)) return null;
+
+        IntBuffer action = buffer.slice(HEADER_LENGTH, 4 * actionLength).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        IntBuffer gotoTable = buffer.slice(HEADER_LENGTH + 4 * actionLength, 4 * gotoLength).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        return new ParseTable(g, stateCount, action, gotoTable);
+    }
+
+    // Writes the tables to the cache file, creating its directory if necessary. The file is replaced, not overwritten.
+    public static void save(ParseTable parseTable, Path cacheFilePath, byte[] fingerprint) throws IOException {
+        IntBuffer action = parseTable.getAction();
+        IntBuffer gotoTable = parseTable.getGotoTable();
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + 4 * (action.limit() + gotoTable.limit())).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.put(fingerprint);
+        buffer.putInt(parseTable.stateCount());
+        buffer.putInt(parseTable.getTerminals().length);
+        buffer.putInt(parseTable.getNonterminals().length);
+        buffer.putInt(parseTable.getGrammar().getProductions().size());
+        for (int i = 0; i < action.limit(); i++) {
+            buffer.putInt(action.get(i));
+        }
+        for (int i = 0; i < gotoTable.limit(); i++) {
+            buffer.putInt(gotoTable.get(i));
+        }
+        buffer.flip();
+
+        // Other processes may have the old file mapped, so it is never rewritten in place: the tables are written to a temporary file next to it,
+        // which then replaces it atomically. A mapping of the old file stays valid, and a reader sees either the old or the new file.
+        Path directory = cacheFilePath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, cacheFilePath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, cacheFilePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        log("Parse tables saved to " + cacheFilePath);
+    }
+}
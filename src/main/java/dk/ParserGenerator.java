@@ -0,0 +1,352 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static util.Logger.log;
+
+// Generates the Java source of a standalone parser class from a compiled ‘ParseTable’, so that a fixed grammar is parsed without building the DK1 automaton at startup.
+// The generated class hard-codes the ACTION, GOTO and unit reduction tables as static arrays and has one case per production in its reduce step,
+// with the length and left-hand side of the production as constants. It parses exactly like ‘ParseTable.parse’ and makes the same trees.
+// It only depends on ‘Grammar’ for the ‘Symbol’ and ‘Production’ objects of the tree; the grammar it is made with is checked against the generated one.
+//
+// Static array initializers are compiled into code, which is limited to 64 KB per method, so the tables are stored as run-length encoded string constants
+// and decoded when the class is initialized. Every entry is one char, the entry plus 0x8000; a zero char is followed by the length of a run of zero entries.
+// A string constant takes at most 65535 bytes in a class file, so the tables are split into chunks.
+public class ParserGenerator {
+
+    // Offset of the encoded entries, so that negative entries are chars as well. Entries must be greater than -OFFSET and less than OFFSET.
+    private static final int OFFSET = 0x8000;
+    // Maximum number of chars per string constant. A char takes up to 3 bytes in a class file.
+    private static final int CHUNK_LENGTH = 20000;
+
+    // The fully qualified name and the source of the generated class.
+    private final String className;
+    private final String source;
+
+    // Generates a parser class for the given tables, with the given fully qualified name.
+    public ParserGenerator(ParseTable parseTable, String className) {
+        this.className = className;
+        int dot = className.lastIndexOf('.');
+        String packageName = dot == -1 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+
+        Grammar g = parseTable.getGrammar();
+        List<Production> productions = g.getProductions();
+        int terminals = parseTable.getTerminals().length;
+        int nonterminals = parseTable.getNonterminals().length;
+        int stateCount = parseTable.stateCount();
+
+        // GOTO entries are stored plus one and unit reductions as production id plus one, so that missing entries are zeros and compress
+        int[] gotoTable = toArray(parseTable.getGotoTable());
+        for (int i = 0; i < gotoTable.length; i++) {
+            gotoTable[i]++;
+        }
+        int[] unitReductions = parseTable.getUnitReductions().clone();
+        for (int i = 0; i < unitReductions.length; i++) {
+            unitReductions[i]++;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (packageName != null) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("""
+                import grammar.Grammar;
+                import grammar.Production;
+                import grammar.Symbol;
+                import lexer.Token;
+                import tree.DTE;
+                import tree.TreeBuilder;
+
+                import java.util.ArrayList;
+                import java.util.Arrays;
+
+                """);
+        sb.append("// Generated by ‘dk.ParserGenerator’ from the DK1 automaton of a grammar at level ").append(g.getLevel()).append(": ")
+                .append(stateCount).append(" states, ").append(terminals).append(" terminals, ").append(nonterminals).append(" nonterminals, ")
+                .append(productions.size()).append(" productions.\n");
+        sb.append("// Do not edit. Generate it again whenever the grammar changes.\n");
+        sb.append("public final class ").append(simpleName).append(" {\n\n");
+
+        sb.append("    private static final int STATES = ").append(stateCount).append(";\n");
+        sb.append("    private static final int TERMINALS = ").append(terminals).append(";\n");
+        sb.append("    private static final int NONTERMINALS = ").append(nonterminals).append(";\n");
+        sb.append("    private static final int PRODUCTIONS = ").append(productions.size()).append(";\n\n");
+
+        sb.append("    // The symbols by id and the productions by id of the grammar, to check the grammar the parser is made with.\n");
+        sb.append("    private static final String[] SYMBOLS = {");
+        for (int id = 0; id < g.getSymbolTable().size(); id++) {
+            sb.append(id % 10 == 0 ? "\n            " : " ").append(literal(g.getSymbolTable().get(id).getContent())).append(',');
+        }
+        sb.append("\n    };\n");
+        sb.append("    private static final String[] PRODUCTION_NAMES = {");
+        for (Production production : productions) {
+            sb.append("\n            ").append(literal(production.toString())).append(',');
+        }
+        sb.append("\n    };\n");
+        sb.append("    // The left-hand side of every production, by production id, as a nonterminal number.\n");
+        sb.append("    private static final int[] LEFT = {");
+        for (Production production : productions) {
+            sb.append(production.getId() % 20 == 0 ? "\n            " : " ").append(production.getLeft().getId() - terminals).append(',');
+        }
+        sb.append("\n    };\n\n");
+
+        // The chunks are declared first, they are not constants and must be initialized before they are decoded
+        appendChunks(sb, "ACTION_CHUNKS", toArray(parseTable.getAction()));
+        appendChunks(sb, "GOTO_CHUNKS", gotoTable);
+        appendChunks(sb, "UNIT_REDUCTION_CHUNKS", unitReductions);
+        sb.append("""
+                    // The ACTION table, row-major with one extra column for the end of the input, encoded as in ‘ParseTable’:
+                    // 0 is an error, a shift is the target state plus one, a reduction -(production id + 1) and an accept -(PRODUCTIONS + production id + 1).
+                    private static final int[] ACTION = decode(STATES * (TERMINALS + 1), ACTION_CHUNKS);
+                    // The GOTO table, row-major. An entry is the target state plus one, 0 if there is none.
+                    private static final int[] GOTO = decode(STATES * NONTERMINALS, GOTO_CHUNKS);
+                    // For every state whose only action is a reduction by a unit production, the id of that production plus one; 0 for all other states.
+                    private static final int[] UNIT_REDUCTIONS = decode(STATES, UNIT_REDUCTION_CHUNKS);
+
+                """);
+
+        sb.append("""
+                    private final Grammar g;
+                    private final Symbol[] symbols;
+
+                    // Makes the parser for the given grammar, which must be the grammar the parser was generated from.
+                """);
+        sb.append("    public ").append(simpleName).append("(Grammar g) {\n");
+        sb.append("""
+                        if (g.getSymbolTable().size() != SYMBOLS.length || g.getSymbolTable().getTerminalCount() != TERMINALS || g.getProductions().size() != PRODUCTIONS) {
+                            throw new IllegalArgumentException("The parser was generated from another grammar");
+                        }
+                        this.g = g;
+                        symbols = new Symbol[SYMBOLS.length];
+                        for (int id = 0; id < symbols.length; id++) {
+                            symbols[id] = g.getSymbolTable().get(id);
+                            if (!symbols[id].getContent().equals(SYMBOLS[id])) {
+                                throw new IllegalArgumentException("The parser was generated from another grammar: symbol " + id + " is " + SYMBOLS[id]);
+                            }
+                        }
+                        for (Production production : g.getProductions()) {
+                            if (!production.toString().equals(PRODUCTION_NAMES[production.getId()])) {
+                                throw new IllegalArgumentException("The parser was generated from another grammar: production " + production.getId() + " is " + PRODUCTION_NAMES[production.getId()]);
+                            }
+                        }
+                    }
+
+                    // Returns a derivation tree for the given valid string.
+                    public DTE parseString(String validString) {
+                        return parse(g.tokenize(validString));
+                    }
+
+                    // Returns a derivation tree for the given tokens, collapsing unit chains.
+                    public DTE parse(ArrayList<Token> tokens) {
+                        return parse(tokens, true);
+                    }
+
+                    // Returns a derivation tree for the given tokens, as ‘TableParser.parse’ does. State 0 is the start state.
+                    public DTE parse(ArrayList<Token> tokens, boolean collapseUnitChains) {
+                        return parse(tokens, collapseUnitChains, false);
+                    }
+
+                    // Returns a derivation tree for the given tokens, as above. With 'dropLayout', the whitespace terminals get no leaves.
+                    public DTE parse(ArrayList<Token> tokens, boolean collapseUnitChains, boolean dropLayout) {
+                        int[] input = new int[tokens.size()];
+                        for (int i = 0; i < input.length; i++) {
+                            Symbol kind = tokens.get(i).kind();
+                            if (kind.getId() >= TERMINALS || symbols[kind.getId()] != kind) {
+                                throw new IllegalArgumentException("Syntax error at symbol " + i + ": \\"" + tokens.get(i).text() + "\\" is not a terminal");
+                            }
+                            input[i] = kind.getId();
+                        }
+
+                        int[] stateStack = new int[64];
+                        int top = 0;
+                        TreeBuilder tree = new TreeBuilder(g.getSymbolTable(), tokens.size(), dropLayout);
+
+                        int position = 0;
+                        while (true) {
+                            int lookahead = position < input.length ? input[position] : TERMINALS;
+                            int entry = ACTION[stateStack[top] * (TERMINALS + 1) + lookahead];
+
+                            if (entry > 0) {
+                                if (++top == stateStack.length) {
+                                    stateStack = Arrays.copyOf(stateStack, 2 * stateStack.length);
+                                }
+                                stateStack[top] = entry - 1;
+                                tree.shift(symbols[lookahead], tokens.get(position).text());
+                                position++;
+                                continue;
+                            }
+                            if (entry == 0) {
+                                throw syntaxError(tokens, position);
+                            }
+
+                            int production = entry < -PRODUCTIONS ? -entry - PRODUCTIONS - 1 : -entry - 1;
+                            switch (production) {
+                """);
+        appendReductions(sb, g);
+        sb.append("""
+                                default -> throw new IllegalStateException("No production " + production);
+                            }
+
+                            // Without a GOTO, the start symbol was reduced before the end of the input
+                            int target = GOTO[stateStack[top] * NONTERMINALS + LEFT[production]] - 1;
+                            if (target < 0) {
+                                throw syntaxError(tokens, position);
+                            }
+                            while (collapseUnitChains && UNIT_REDUCTIONS[target] != 0) {
+                                int unit = UNIT_REDUCTIONS[target] - 1;
+                                tree.collapseUnitProduction(symbols[TERMINALS + LEFT[unit]]);
+                                target = GOTO[stateStack[top] * NONTERMINALS + LEFT[unit]] - 1;
+                            }
+                            if (++top == stateStack.length) {
+                                stateStack = Arrays.copyOf(stateStack, 2 * stateStack.length);
+                            }
+                            stateStack[top] = target;
+                        }
+                    }
+
+                    // Returns the error for the token at the given position, or the end of the input, which no action of the tables accepts.
+                    private static IllegalArgumentException syntaxError(ArrayList<Token> tokens, int position) {
+                        return new IllegalArgumentException("Syntax error at symbol " + position + ": " + (position < tokens.size() ? "\\"" + tokens.get(position).text() + "\\"" : "end of input"));
+                    }
+
+                    // Decodes a run-length encoded table of the given length.
+                    private static int[] decode(int length, String[] chunks) {
+                        int[] result = new int[length];
+                        int index = 0;
+                        for (String chunk : chunks) {
+                            for (int i = 0; i < chunk.length(); i++) {
+                                char c = chunk.charAt(i);
+                                if (c == 0) {
+                                    index += chunk.charAt(++i);
+                                } else {
+                                    result[index++] = c - 0x8000;
+                                }
+                            }
+                        }
+                        if (index != length) {
+                            throw new IllegalStateException("Corrupt table: " + index + " entries instead of " + length);
+                        }
+                        return result;
+                    }
+                }
+                """);
+        source = sb.toString();
+
+        log("Generated parser " + className + ": " + source.length() + " characters");
+    }
+
+    // Appends one case per production to the reduce step. A unit production may be collapsed, a reduction by a production of the start symbol
+    // accepts if its entry is an ACCEPT and nothing is left to parse.
+    private static void appendReductions(StringBuilder sb, Grammar g) {
+        for (Production production : g.getProductions()) {
+            String reduce = "tree.reduce(symbols[" + production.getLeft().getId() + "], " + production.getRight().size() + ");";
+            sb.append("                    // ").append(production.toString().replace("\\u", "\\\\u")).append('\n');
+            sb.append("                    case ").append(production.getId()).append(" -> {\n");
+            if (production.isUnit()) {
+                sb.append("                        if (collapseUnitChains) {\n");
+                sb.append("                            tree.collapseUnitProduction(symbols[").append(production.getLeft().getId()).append("]);\n");
+                sb.append("                        } else {\n");
+                sb.append("                            ").append(reduce).append('\n');
+                sb.append("                        }\n");
+            } else {
+                sb.append("                        ").append(reduce).append('\n');
+            }
+            if (!production.getRight().isEmpty()) {
+                sb.append("                        top -= ").append(production.getRight().size()).append(";\n");
+            }
+            if (production.getLeft().equals(g.getStart())) {
+                // Accepts as in ‘TableParser’: an ACCEPT entry that leaves the start symbol alone on the stack at the end of the input
+                sb.append("                        if (entry < -PRODUCTIONS && top == 0 && position == input.length) {\n");
+                sb.append("                            return tree.getRoot();\n");
+                sb.append("                        }\n");
+            }
+            sb.append("                    }\n");
+        }
+    }
+
+    // Appends the string constant chunks of a run-length encoded table.
+    private static void appendChunks(StringBuilder sb, String name, int[] table) {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < table.length; ) {
+            if (table[i] == 0) {
+                int run = 1;
+                while (i + run < table.length && table[i + run] == 0 && run < Character.MAX_VALUE) {
+                    run++;
+                }
+                encoded.append((char) 0).append((char) run);
+                i += run;
+            } else {
+                if (table[i] <= -OFFSET || table[i] >= OFFSET) {
+                    throw new IllegalArgumentException("Table entry " + table[i] + " of " + name + " is out of range");
+                }
+                encoded.append((char) (table[i] + OFFSET));
+                i++;
+            }
+        }
+
+        sb.append("    private static final String[] ").append(name).append(" = {\n");
+        int begin = 0;
+        while (begin < encoded.length()) {
+            // A run marker and its length stay in one chunk
+            int end = Math.min(begin + CHUNK_LENGTH, encoded.length());
+            if (encoded.charAt(end - 1) == 0) {
+                end++;
+            }
+            sb.append("            ").append(literal(encoded.substring(begin, end))).append(",\n");
+            begin = end;
+        }
+        sb.append("    };\n\n");
+    }
+
+    // Returns a Java string literal of the given text. Unicode escapes are translated before the source is tokenized, so control characters
+    // and quotes are written as octal escapes, which are not.
+    private static String literal(String text) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c < 0x7F && c != '"' && c != '\\') {
+                sb.append(c);
+            } else if (c < 0x100) {
+                sb.append(String.format("\\%03o", (int) c));
+            } else {
+                sb.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] result = new int[buffer.limit()];
+        buffer.get(0, result);
+        return result;
+    }
+
+    // Returns the generated source.
+    public String getSource() {
+        return source;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    // Writes the generated source below the given source root, in the directory of its package. Returns the path of the file.
+    public Path write(Path sourceRoot) throws IOException {
+        Path file = sourceRoot.resolve(className.replace('.', '/') + ".java");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, source);
+        log("Generated parser written to " + file);
+        return file;
+    }
+}
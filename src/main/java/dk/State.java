@@ -3,11 +3,21 @@ package dk;
 import grammar.Grammar;
 import grammar.Production;
 import grammar.Symbol;
+import grammar.TerminalSet;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 public class State {
 
@@ -16,91 +26,97 @@ public class State {
 
     // A HashMap<Symbol, State> representing the neighboring states of the current state.
     // In other words, the transitionFunction tracks paths from the current state to other states via a specific ‘Symbol’ object.
-    private final HashMap<Symbol, State> transitionFunction = new HashMap<>();
+    // Transitions are added, and iterated, in the order of the symbol ids.
+    private final HashMap<Symbol, State> transitionFunction = new LinkedHashMap<>();
 
     //A set of ‘Item’ objects to represent all the completed rules.
     private final HashSet<Item> completeItems = new HashSet<>();
 
+    // The items by their production id and dotIndex, so that merging lookaheads into an existing item is a single lookup.
+    private final HashMap<Long, Item> itemsByCore = new HashMap<>();
+
+    // The canonical key of the items. Computed on first request, once the ε-transitions are complete and the items no longer change.
+    private StateKey key;
+
     // adds a new ‘Item’ object to the items. If a similar item with the same production and dotIndex already exists, the function simply merges the lookaheads.
     public boolean addItem(Item newItem) {
 
-        for (Item item : items) {
-            if (item.sameProductionAndDot(newItem)) {
-                int size = item.getLookaheads().size();
-                item.addLookaheads(newItem.getLookaheads());
-                return size < item.getLookaheads().size();
-            }
+        Item item = findItem(newItem.getProduction(), newItem.getDotIndex());
+        if (item != null) {
+            return item.addLookaheads(newItem.getLookaheads());
         }
 
         items.add(newItem);
+        itemsByCore.put(core(newItem.getProduction(), newItem.getDotIndex()), newItem);
         if (newItem.isComplete()) {
             completeItems.add(newItem);
         }
         return true;
     }
 
-    // Implements the ε-transitions process as described in the book.
-    public void makeEpsilonMoves(Grammar g) {
-
-        boolean newItems;
-        do {
-            newItems = false;
-
-            for (Item currentitem : new HashSet<>(items)) { // Copy items to avoid ConcurrentModificationException
-
-                Symbol currentSymbol = currentitem.currentSymbol();
-
-                if (currentSymbol == null) continue;
-
-                if (!currentSymbol.isTerminal()) {
-
-                    Symbol nextSymbol = currentitem.nextSymbol();
-
-                    HashSet<Symbol> lookaheads;
-                    if (nextSymbol == null) {
-                        lookaheads = new HashSet<>(currentitem.getLookaheads());
-                    } else {
-                        lookaheads = State.lookaheadsFromSymbol(nextSymbol, new HashSet<>(), g);
-                    }
-
-                    for (Production production : g.getProductions()) {
-                        if (production.getLeft().equals(currentSymbol)) {
-                            Item newItem = new Item(production, 0, lookaheads);
-                            newItems = newItems || addItem(newItem);
-                        }
-                    }
-                }
-            }
-
-        } while (newItems);
+    // Returns the item with the given production and dotIndex if this state has one, otherwise returns null.
+    private Item findItem(Production production, int dotIndex) {
+        return itemsByCore.get(core(production, dotIndex));
     }
 
-    // Calculates and returns all the terminal symbols that can be the first symbol of the valid strings derivable from the given symbol within this grammar. As this function is also recursive, the symbols parameter keeps track of visited symbols to prevent the infinite loops
-    public static HashSet<Symbol> lookaheadsFromSymbol(Symbol symbol, HashSet<Symbol> symbols, Grammar g) {
-        HashSet<Symbol> lookaheads = new HashSet<>();
-        symbols.add(symbol);
+    private static long core(Production production, int dotIndex) {
+        return ((long) production.getId() << 32) | dotIndex;
+    }
 
-        if (symbol.isTerminal()) {
-            lookaheads.add(symbol);
-            return lookaheads;
-        } else {
-            for (Production production : g.getProductions()) {
-                if (production.getLeft().equals(symbol)) {
-                    Symbol derivedSymbol = production.getRight().get(0);
-                    if (!symbols.contains((derivedSymbol))) {
-                        lookaheads.addAll((lookaheadsFromSymbol(derivedSymbol, symbols, g)));
-                    }
+    // Implements the ε-transitions process as described in the book.
+    // A worklist holds the items whose lookaheads still have to be passed on; an item is only visited again when its lookaheads grew.
+    public void makeEpsilonMoves(Grammar g) {
+        ArrayDeque<Item> worklist = new ArrayDeque<>(items);
+        Set<Item> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+        queued.addAll(items);
+
+        while (!worklist.isEmpty()) {
+            Item currentItem = worklist.poll();
+            queued.remove(currentItem);
+
+            Symbol currentSymbol = currentItem.currentSymbol();
+            if (currentSymbol == null || currentSymbol.isTerminal()) continue;
+
+            TerminalSet lookaheads = g.first(currentItem.getProduction().getRight(), currentItem.getDotIndex() + 1, currentItem.getLookaheads());
+
+            for (Production production : g.getProductions(currentSymbol)) {
+                // A new item gets its own copy, so that merging lookaheads into one item never changes another.
+                Item item = findItem(production, 0);
+                if (item == null) {
+                    item = new Item(production, 0, lookaheads.copy());
+                    addItem(item);
+                } else if (!item.addLookaheads(lookaheads)) {
+                    continue;
+                }
+                if (queued.add(item)) {
+                    worklist.add(item);
                 }
             }
         }
+    }
+
+    // Implements the shift transitions process specified in the book. This function initializes new states, when necessary, and returns them.
+    // The kernels parameter indexes the existing states by the keys of their kernels, i.e. of the items they were created from, so that we don’t duplicate state creations,
+    // and a state reached with the same kernel from different predecessors is closed only once.
+    // Transitions are made in the order of the symbol ids, so the new states are returned in a deterministic order. The kernels map may be shared by concurrent callers if it is a ConcurrentMap.
+    public List<State> makeShiftMoves(Map<StateKey, State> kernels, Grammar g) {
+        return makeShiftMoves(kernels, g, closing(g));
+    }
 
-        return lookaheads;
+    // Makes a state for a kernel that has no state yet. By default the kernel is closed under the grammar; ‘IncrementalDK1’ reuses the closures of a previous automaton.
+    interface Closure {
+        State close(StateKey kernelKey, List<Item> kernel);
     }
 
+    // Returns the default closure: the kernel items and their ε-transitions under the given grammar.
+    static Closure closing(Grammar g) {
+        return (kernelKey, kernel) -> createTransitionState(kernel, g);
+    }
 
-    // Implements the shift transitions process specified in the book. This function initializes new states, when necessary. The states parameter ensures we don’t duplicate state creations.
-    public void makeShiftMoves(HashSet<State> states, Grammar g) {
-        Map<Symbol, Set<Item>> symbolToItemsMap = new HashMap<>();
+    // Same as above, with the given way to make new states.
+    List<State> makeShiftMoves(Map<StateKey, State> kernels, Grammar g, Closure closure) {
+        List<State> newStates = new ArrayList<>();
+        Map<Symbol, Set<Item>> symbolToItemsMap = new TreeMap<>(Comparator.comparingInt(Symbol::getId));
 
         // Find all transition symbol possibilities and map their items
         for (Item item : items) {
@@ -113,65 +129,60 @@ public class State {
 
         // Make transition paths
         for (Map.Entry<Symbol, Set<Item>> entry : symbolToItemsMap.entrySet()) {
-            Symbol transitionSymbol = entry.getKey();
-            Set<Item> transitionItems = entry.getValue();
-            State transitionState = createTransitionState(transitionItems, states, g);
-            transitionFunction.put(transitionSymbol, transitionState);
+            transitionFunction.put(entry.getKey(), shift(entry.getValue(), kernels, closure, newStates));
         }
-    }
-
-    // Returns true if two ‘State’ objects possess identical sets of ‘Item’ objects. Although two states may be identical, they might not be considered equal if one is still under construction and its transitionFunction isn’t finalized. Therefore, identity is checked using the items.
-    public boolean sameItems(State newState) {
 
-        HashSet<Item> items1 = items;
-        HashSet<Item> items2 = newState.getItems();
-
-        if (items1.size() != items2.size()) return false;
+        return newStates;
+    }
 
-        for (Item item1 : items1) {
-            boolean flag = false;
-            for (Item item2 : items2) {
-                if (item1.equals(item2)) {
-                    flag = true;
-                    break;
-                }
+    // Makes the shift transition with the given symbol only, as a lazy automaton does when a parser first needs it. Returns the reached state, or null if no item has the symbol next to its dot.
+    // A new state reached by the transition is added to newStates.
+    public State makeShiftMove(Symbol symbol, Map<StateKey, State> kernels, Grammar g, List<State> newStates) {
+        List<Item> transitionItems = new ArrayList<>();
+        for (Item item : items) {
+            if (symbol.equals(item.currentSymbol())) {
+                transitionItems.add(item);
             }
-            if (!flag) return false;
         }
+        if (transitionItems.isEmpty()) return null;
 
-        for (Item item2 : items2) {
-            boolean flag = false;
-            for (Item item1 : items1) {
-                if (item2.equals(item1)) {
-                    flag = true;
-                    break;
-                }
+        State transitionState = shift(transitionItems, kernels, closing(g), newStates);
+        transitionFunction.put(symbol, transitionState);
+        return transitionState;
+    }
+
+    // Returns the state whose kernel are the given items with the dot moved over the next symbol, creating and closing it if there is none yet.
+    private static State shift(Collection<Item> transitionItems, Map<StateKey, State> kernels, Closure closure, List<State> newStates) {
+        // The kernel shares the lookaheads of the items, they don't change anymore. The new state copies them.
+        List<Item> kernel = new ArrayList<>();
+        for (Item item : transitionItems) {
+            kernel.add(new Item(item.getProduction(), item.getDotIndex() + 1, item.getLookaheads()));
+        }
+        StateKey kernelKey = StateKey.of(kernel);
+
+        State transitionState = kernels.get(kernelKey);
+        if (transitionState == null) {
+            State createdState = closure.close(kernelKey, kernel);
+            transitionState = kernels.putIfAbsent(kernelKey, createdState);
+            if (transitionState == null) {
+                transitionState = createdState;
+                newStates.add(createdState);
             }
-            if (!flag) return false;
         }
-
-        return true;
+        return transitionState;
     }
 
-    // Creates and returns a new ‘State’ object with a given set of items. If the state with the same items already exists, the function doesn’t create a new state and returns existing one. Creating new transition states is necessary in the construction process of the automata.
-    private State createTransitionState(Set<Item> transitionItems, HashSet<State> states, Grammar g) {
+    // Creates and returns a new ‘State’ object with the given kernel items and their closure. Whether a state with the same kernel already exists is decided by the caller. Creating new transition states is necessary in the construction process of the automata.
+    private static State createTransitionState(List<Item> kernel, Grammar g) {
         State transitionState = new State();
 
-        for (Item item : transitionItems) {
-            Item newItem = new Item(item.getProduction(), item.getDotIndex() + 1, item.getLookaheads());
+        for (Item item : kernel) {
+            Item newItem = new Item(item.getProduction(), item.getDotIndex(), item.getLookaheads().copy());
             transitionState.addItem(newItem);
         }
 
         transitionState.makeEpsilonMoves(g);
 
-        for (State state : states) {
-
-            int itemsSize = transitionState.getItems().size();
-            if (state.getItems().size() == itemsSize && state.sameItems(transitionState)) {
-                return state;
-            }
-        }
-        states.add(transitionState);
         return transitionState;
     }
 
@@ -205,6 +216,22 @@ public class State {
 
     }
 
+    public StateKey getKey() {
+        if (key == null) {
+            key = StateKey.of(items);
+        }
+        return key;
+    }
+
+    // Returns true if an item of this state has the given symbol after its dot. Unlike the transition function, this holds for a state of a lazy automaton
+    // whose transitions aren't made yet.
+    public boolean shifts(Symbol symbol) {
+        for (Item item : items) {
+            if (!item.isComplete() && item.currentSymbol().equals(symbol)) return true;
+        }
+        return false;
+    }
+
     public HashSet<Item> getItems() {
         return items;
     }
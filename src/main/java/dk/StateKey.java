@@ -0,0 +1,75 @@
+package dk;
+
+import grammar.TerminalSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// A canonical, hashable fingerprint of the items of a ‘State’ object.
+// Items are sorted by (production id, dotIndex), so two states with identical item sets always produce equal keys,
+// regardless of the order in which their items were added. This lets the automaton construction find an existing state with an expected O(1) hash lookup.
+public final class StateKey {
+
+    // Production ids of the items, in sorted order.
+    private final int[] productionIds;
+    // Dot indexes of the items, aligned with productionIds.
+    private final int[] dotIndexes;
+    // Lookahead sets of the items, aligned with productionIds.
+    private final List<TerminalSet> lookaheads;
+    // The hash code is computed once, as keys are probed many times during the construction.
+    private final int hash;
+
+    private StateKey(int[] productionIds, int[] dotIndexes, List<TerminalSet> lookaheads) {
+        this.productionIds = productionIds;
+        this.dotIndexes = dotIndexes;
+        this.lookaheads = lookaheads;
+
+        int result = Arrays.hashCode(productionIds);
+        result = 31 * result + Arrays.hashCode(dotIndexes);
+        result = 31 * result + lookaheads.hashCode();
+        this.hash = result;
+    }
+
+    // Creates the key of the given items. Items are expected to be unique by production and dotIndex, which ‘State.addItem’ guarantees.
+    public static StateKey of(Collection<Item> items) {
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt((Item item) -> item.getProduction().getId()).thenComparingInt(Item::getDotIndex));
+
+        int[] productionIds = new int[sorted.size()];
+        int[] dotIndexes = new int[sorted.size()];
+        List<TerminalSet> lookaheads = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            Item item = sorted.get(i);
+            productionIds[i] = item.getProduction().getId();
+            dotIndexes[i] = item.getDotIndex();
+            lookaheads.add(item.getLookaheads());
+        }
+
+        return new StateKey(productionIds, dotIndexes, lookaheads);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        StateKey key = (StateKey) obj;
+
+        return hash == key.hash
+                && Arrays.equals(productionIds, key.productionIds)
+                && Arrays.equals(dotIndexes, key.dotIndexes)
+                && lookaheads.equals(key.lookaheads);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+}
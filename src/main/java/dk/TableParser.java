@@ -0,0 +1,105 @@
+package dk;
+
+import grammar.Grammar;
+import grammar.Production;
+import grammar.Symbol;
+import lexer.Token;
+import tree.DTE;
+import tree.TreeBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static util.Context.DEBUG;
+import static util.Logger.log;
+
+// The LR parse loop over ‘LRTables’, shared by the dense and the compressed tables.
+final class TableParser {
+
+    private TableParser() {
+    }
+
+    // Returns a derivation tree for the given tokens. State 0 is the start state.
+    // With 'collapseUnitChains', a reduction by a unit production relabels the node on top instead of making a father for it, and the states that only
+    // reduce by a unit production are skipped: the GOTO of their reduction is taken right away. The collapsed labels are recorded on the node, which
+    // makes the skipped nodes when it is navigated, so the tree reads the same. A syntax error may then be detected a few reductions later, but still
+    // before the offending terminal is shifted.
+    static DTE parse(LRTables tables, ArrayList<Token> tokens, boolean collapseUnitChains, boolean dropLayout) {
+        Grammar g = tables.getGrammar();
+        Symbol[] terminals = tables.getTerminals();
+
+        // Encode the input once
+        int[] input = new int[tokens.size()];
+        for (int i = 0; i < input.length; i++) {
+            Symbol kind = tokens.get(i).kind();
+            if (kind.getId() >= terminals.length || terminals[kind.getId()] != kind) {
+                throw new IllegalArgumentException("Syntax error at symbol " + i + ": \"" + tokens.get(i).text() + "\" is not a terminal");
+            }
+            input[i] = kind.getId();
+        }
+
+        int productionCount = g.getProductions().size();
+
+        int[] stateStack = new int[64];
+        int top = 0;
+        stateStack[0] = 0;
+        TreeBuilder tree = new TreeBuilder(g.getSymbolTable(), tokens.size(), dropLayout);
+
+        int position = 0;
+        while (true) {
+            int lookahead = position < input.length ? input[position] : terminals.length;
+            int entry = tables.action(stateStack[top], lookahead);
+
+            if (entry > 0) {
+                // Shift
+                if (++top == stateStack.length) {
+                    stateStack = Arrays.copyOf(stateStack, 2 * stateStack.length);
+                }
+                stateStack[top] = entry - 1;
+                tree.shift(terminals[lookahead], tokens.get(position).text());
+                position++;
+            } else if (entry < 0) {
+                // Reduce or accept
+                boolean accept = entry < -productionCount;
+                int production = accept ? -entry - productionCount - 1 : -entry - 1;
+                Production handle = g.getProductions().get(production);
+                if (DEBUG) log("[handle: " + handle + "]");
+
+                if (collapseUnitChains && handle.isUnit()) {
+                    tree.collapseUnitProduction(handle.getLeft());
+                } else {
+                    tree.reduce(handle);
+                }
+                top -= handle.getRight().size();
+
+                // The start symbol alone on the stack at the end of the input; anything else is a reduction
+                if (accept && top == 0 && position == input.length) {
+                    return tree.getRoot();
+                }
+
+                // Without a GOTO, the start symbol was reduced before the end of the input
+                int target = tables.goTo(stateStack[top], handle.getLeft().getId() - terminals.length);
+                if (target < 0) {
+                    throw syntaxError(tokens, position);
+                }
+                while (collapseUnitChains && tables.unitReduction(target) >= 0) {
+                    Production unit = g.getProductions().get(tables.unitReduction(target));
+                    if (DEBUG) log("[handle: " + unit + "]");
+                    tree.collapseUnitProduction(unit.getLeft());
+                    target = tables.goTo(stateStack[top], unit.getLeft().getId() - terminals.length);
+                }
+                if (++top == stateStack.length) {
+                    stateStack = Arrays.copyOf(stateStack, 2 * stateStack.length);
+                }
+                stateStack[top] = target;
+            } else {
+                throw syntaxError(tokens, position);
+            }
+        }
+    }
+
+    // Returns the error for the token at the given position, or the end of the input, which no action of the tables accepts.
+    static IllegalArgumentException syntaxError(ArrayList<Token> tokens, int position) {
+        return new IllegalArgumentException("Syntax error at symbol " + position + ": " + (position < tokens.size() ? "\"" + tokens.get(position).text() + "\"" : "end of input"));
+    }
+}
@@ -1,11 +1,19 @@
 package grammar;
 
+import lexer.Lexer;
+import lexer.Token;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.function.Predicate;
 
 // Represents a Context-Free Grammar.
@@ -13,6 +21,34 @@ import java.util.function.Predicate;
 // manipulate (tokenize, pre-process), and store this information in suitable data structures for further use.
 public class Grammar {
 
+    // The levels at which a grammar can describe its input.
+    // CHARACTER is the grammar as written in 'Grammar.txt': every character of the source is a terminal, and names and numbers are derived one character at a time.
+    // TOKEN lifts the lexical nonterminals IDENTIFIER and NUMBER to terminals and drops whitespace from the productions. Its input is produced by a ‘Lexer’.
+    public enum Level {
+        CHARACTER, TOKEN
+    }
+
+    // How a shift/reduce conflict between a reduction and a shift of the lookahead is resolved by the precedence declarations.
+    // UNRESOLVED means that the production or the lookahead has no declared precedence; the parse engines then reduce, and the conflict is reported.
+    public enum Resolution {
+        SHIFT, REDUCE, ERROR, UNRESOLVED
+    }
+
+    // The lexical nonterminals of 'Grammar.txt' that become single tokens at the TOKEN level.
+    public static final String IDENTIFIER = "<Na>";
+    public static final String NUMBER = "<DiS>";
+    // The terminal that marks an unsigned number constant, e.g. 14u.
+    public static final String UNSIGNED_SUFFIX = "u";
+
+    // The level of this grammar.
+    private final Level level;
+    // The lexer of a TOKEN level grammar, null otherwise.
+    private final Lexer lexer;
+    // The canonical instances and ids of all symbols of the grammar.
+    private final SymbolTable symbolTable;
+    // The trie over all symbols read from the files. Splits production rules and, at the CHARACTER level, the source into symbols.
+    private final SymbolTrie symbolTrie;
+
     // The start symbol of the grammar.
     // By convention, it's the left nonterminal of the first production rule.
     private final Symbol start;
@@ -22,28 +58,234 @@ public class Grammar {
     private final HashSet<Symbol> nonterminals;
     // The list of production rules.
     private final List<Production> productions;
+    // The production rules grouped by their left-hand side nonterminal, in the order of 'Grammar.txt'.
+    private final Map<Symbol, List<Production>> productionsByLeft;
+    // The set of nonterminals that derive the empty string.
+    private final HashSet<Symbol> nullable;
+    // The FIRST set of every symbol: all terminals that can begin a string derived from it. The FIRST set of a terminal is the terminal itself.
+    private final Map<Symbol, TerminalSet> firstSets;
+    // The precedences declared in 'Grammar.txt', by the contents of their terminals. Kept by content, since the TOKEN level interns the terminals again.
+    private final Map<String, Precedence> declaredPrecedences;
+    // The precedence of every terminal by its id, and of every production by its id. Null where none is declared.
+    private final Precedence[] terminalPrecedences;
+    private final Precedence[] productionPrecedences;
 
     // Receives file paths of 'Grammar.txt' and 'Terminals.txt'.
     // Initializes the set of terminals.
     // Initializes the set of nonterminals.
     // Initializes the list of productions.
     // Initializes the start symbol.
+    // Computes the production index, the nullable nonterminals and the FIRST sets once, so that the automaton construction only does lookups.
     public Grammar(String grammarFilePath, String terminalsFilePath) throws FileNotFoundException {
+        this(grammarFilePath, terminalsFilePath, Level.CHARACTER);
+    }
+
+    // Same as above, at the given level. A TOKEN level grammar is derived from the CHARACTER level grammar of the files after reading them.
+    public Grammar(String grammarFilePath, String terminalsFilePath, Level level) throws FileNotFoundException {
+        this.level = level;
+        symbolTable = new SymbolTable();
         terminals = new HashSet<>();
         nonterminals = new HashSet<>();
         productions = new ArrayList<>();
+        productionsByLeft = new HashMap<>();
+        nullable = new HashSet<>();
+        firstSets = new HashMap<>();
+        declaredPrecedences = new HashMap<>();
 
         // Read terminal symbols.
         readTerminals(terminalsFilePath);
 
+        // Read precedence declarations.
+        readPrecedences(grammarFilePath);
+
         // Read nonterminal symbols.
         readNonterminals(grammarFilePath);
 
+        // Build the trie for splitting strings into symbols.
+        symbolTrie = new SymbolTrie(terminals, nonterminals);
+
         // Read Productions.
         readProductions(grammarFilePath);
 
+        // Lift the lexical nonterminals to tokens.
+        if (level == Level.TOKEN) {
+            liftTokens();
+        }
+
         // Initialize the start symbol.
         start = productions.get(0).getLeft();
+
+        // Index productions by their left-hand side.
+        indexProductions();
+
+        // Compute nullable nonterminals and FIRST sets.
+        computeNullableAndFirstSets();
+
+        // Give the terminals and productions their precedences.
+        terminalPrecedences = new Precedence[symbolTable.getTerminalCount()];
+        productionPrecedences = new Precedence[productions.size()];
+        computePrecedences();
+
+        lexer = level == Level.TOKEN ? new Lexer(this) : null;
+    }
+
+    // Turns the CHARACTER level grammar that was read into its TOKEN level counterpart:
+    // 1) IDENTIFIER and NUMBER become terminals on the right-hand sides, and their own productions are dropped
+    // 2) Whitespace terminals are dropped from the right-hand sides, the lexer skips whitespace
+    // 3) Nonterminals that are no longer reachable from the start symbol, e.g. letters and digits, are dropped with their productions
+    // Terminals and nonterminals are reduced to those that still occur in the productions. They are interned again, so that their ids stay dense, and productions are renumbered.
+    private void liftTokens() {
+        HashSet<Symbol> tokens = new HashSet<>();
+        tokens.add(symbolTable.lookup(IDENTIFIER, Symbol.SymbolType.Nonterminal));
+        tokens.add(symbolTable.lookup(NUMBER, Symbol.SymbolType.Nonterminal));
+
+        Map<Symbol, List<Production>> lifted = new HashMap<>();
+        for (Production production : productions) {
+            if (tokens.contains(production.getLeft())) continue;
+
+            ArrayList<Symbol> right = new ArrayList<>();
+            for (Symbol symbol : production.getRight()) {
+                if (isWhitespace(symbol)) continue;
+                right.add(symbol);
+            }
+            lifted.computeIfAbsent(production.getLeft(), k -> new ArrayList<>()).add(new Production(production.getLeft(), right, 0));
+        }
+
+        // Keep the reachable nonterminals, the tokens are leaves now
+        Symbol startSymbol = productions.get(0).getLeft();
+        HashSet<Symbol> reachable = new HashSet<>();
+        ArrayList<Symbol> queue = new ArrayList<>();
+        reachable.add(startSymbol);
+        queue.add(startSymbol);
+        while (!queue.isEmpty()) {
+            Symbol nonterminal = queue.remove(queue.size() - 1);
+            for (Production production : lifted.getOrDefault(nonterminal, Collections.emptyList())) {
+                for (Symbol symbol : production.getRight()) {
+                    if (!symbol.isTerminal() && !tokens.contains(symbol) && reachable.add(symbol)) {
+                        queue.add(symbol);
+                    }
+                }
+            }
+        }
+
+        // Productions of the same left-hand side are taken together, in their original order
+        List<Production> keptProductions = new ArrayList<>();
+        for (Production production : productions) {
+            if (!reachable.contains(production.getLeft()) || !lifted.containsKey(production.getLeft())) continue;
+            keptProductions.addAll(lifted.remove(production.getLeft()));
+        }
+
+        // Intern the remaining symbols again: terminals and tokens first, both in the order of their old ids
+        List<Symbol> keptTerminals = new ArrayList<>();
+        List<Symbol> keptNonterminals = new ArrayList<>();
+        HashSet<Symbol> seen = new HashSet<>();
+        for (Production production : keptProductions) {
+            if (seen.add(production.getLeft())) keptNonterminals.add(production.getLeft());
+            for (Symbol symbol : production.getRight()) {
+                if ((symbol.isTerminal() || tokens.contains(symbol)) && seen.add(symbol)) keptTerminals.add(symbol);
+            }
+        }
+        keptTerminals.sort(Comparator.comparingInt(Symbol::getId));
+        keptNonterminals.sort(Comparator.comparingInt(Symbol::getId));
+
+        symbolTable.clear();
+        terminals.clear();
+        nonterminals.clear();
+        Map<Symbol, Symbol> interned = new HashMap<>();
+        for (Symbol terminal : keptTerminals) {
+            Symbol symbol = symbolTable.intern(terminal.getContent(), Symbol.SymbolType.Terminal);
+            interned.put(terminal, symbol);
+            terminals.add(symbol);
+        }
+        for (Symbol nonterminal : keptNonterminals) {
+            Symbol symbol = symbolTable.intern(nonterminal.getContent(), Symbol.SymbolType.Nonterminal);
+            interned.put(nonterminal, symbol);
+            nonterminals.add(symbol);
+        }
+
+        productions.clear();
+        for (Production production : keptProductions) {
+            ArrayList<Symbol> right = new ArrayList<>();
+            for (Symbol symbol : production.getRight()) {
+                right.add(interned.get(symbol));
+            }
+            productions.add(new Production(interned.get(production.getLeft()), right, productions.size()));
+        }
+    }
+
+    private static boolean isWhitespace(Symbol symbol) {
+        return symbol.isTerminal() && (symbol.getContent().equals(" ") || symbol.getContent().equals("\t") || symbol.getContent().equals("\n"));
+    }
+
+    // Groups the productions by their left-hand side nonterminal.
+    private void indexProductions() {
+        for (Production production : productions) {
+            productionsByLeft.computeIfAbsent(production.getLeft(), k -> new ArrayList<>()).add(production);
+        }
+        productionsByLeft.replaceAll((left, list) -> Collections.unmodifiableList(list));
+    }
+
+    // Computes the nullable nonterminals and the FIRST sets of all nonterminals with a fixpoint iteration over the productions.
+    // A production X -> Y1...Yk adds FIRST(Yi) to FIRST(X) as long as Y1...Yi-1 are all nullable, and makes X nullable if all of Y1...Yk are.
+    private void computeNullableAndFirstSets() {
+        for (Symbol terminal : terminals) {
+            TerminalSet first = new TerminalSet(symbolTable);
+            first.add(terminal);
+            firstSets.put(terminal, first);
+        }
+        for (Symbol nonterminal : nonterminals) {
+            firstSets.put(nonterminal, new TerminalSet(symbolTable));
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+
+            for (Production production : productions) {
+                TerminalSet leftFirst = firstSets.get(production.getLeft());
+
+                boolean allNullable = true;
+                for (Symbol symbol : production.getRight()) {
+                    changed = leftFirst.addAll(getFirst(symbol)) || changed;
+                    if (!isNullable(symbol)) {
+                        allNullable = false;
+                        break;
+                    }
+                }
+
+                if (allNullable) {
+                    changed = nullable.add(production.getLeft()) || changed;
+                }
+            }
+        } while (changed);
+    }
+
+    // A terminal gets the precedence declared for it. A production gets the precedence of the last terminal of its right-hand side that has one.
+    private void computePrecedences() {
+        for (Symbol terminal : terminals) {
+            terminalPrecedences[terminal.getId()] = declaredPrecedences.get(terminal.getContent());
+        }
+        for (Production production : productions) {
+            for (Symbol symbol : production.getRight()) {
+                if (symbol.isTerminal() && terminalPrecedences[symbol.getId()] != null) {
+                    productionPrecedences[production.getId()] = terminalPrecedences[symbol.getId()];
+                }
+            }
+        }
+    }
+
+    // Returns all terminals that can begin a string derived from the given sequence of symbols starting at index 'from',
+    // followed by one of the given lookaheads. The lookaheads are included only if the rest of the sequence is nullable.
+    public TerminalSet first(List<Symbol> symbols, int from, TerminalSet lookaheads) {
+        TerminalSet result = new TerminalSet(symbolTable);
+        for (int i = from; i < symbols.size(); i++) {
+            result.addAll(getFirst(symbols.get(i)));
+            if (!isNullable(symbols.get(i))) {
+                return result;
+            }
+        }
+        result.addAll(lookaheads);
+        return result;
     }
 
     // Reads terminals from 'Terminals.txt'
@@ -53,11 +295,42 @@ public class Grammar {
         Scanner in = new Scanner(new File(terminalsFilePath));
         while (in.hasNext()) {
             final String terminal = in.nextLine().replaceAll("\\s", "");
-            terminals.add(new Symbol(terminal, Symbol.SymbolType.Terminal));
+            terminals.add(symbolTable.intern(terminal, Symbol.SymbolType.Terminal));
+        }
+        terminals.add(symbolTable.intern(" ", Symbol.SymbolType.Terminal));
+        terminals.add(symbolTable.intern("\t", Symbol.SymbolType.Terminal));
+        terminals.add(symbolTable.intern("\n", Symbol.SymbolType.Terminal));
+    }
+
+    // Reads the precedence declarations from 'Grammar.txt': lines such as "%left + -" or "%nonassoc ==", with terminals separated by whitespace.
+    // Every line is one precedence level, later lines bind tighter.
+    private void readPrecedences(String grammarFilePath) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(grammarFilePath));
+        int level = 0;
+        while (in.hasNext()) {
+            String str = in.nextLine();
+            if (!isDeclaration(str)) continue;
+
+            String[] parts = str.trim().split("\\s+");
+            Precedence.Associativity associativity = Precedence.associativityOf(parts[0]);
+            if (associativity == null) {
+                throw new IllegalArgumentException("Unknown declaration: " + str);
+            }
+            level++;
+            for (int i = 1; i < parts.length; i++) {
+                if (symbolTable.lookup(parts[i], Symbol.SymbolType.Terminal) == null) {
+                    throw new IllegalArgumentException("Unknown terminal in precedence declaration: " + parts[i]);
+                }
+                if (declaredPrecedences.put(parts[i], new Precedence(level, associativity)) != null) {
+                    throw new IllegalArgumentException("Precedence of " + parts[i] + " is declared twice");
+                }
+            }
         }
-        terminals.add(new Symbol(" ", Symbol.SymbolType.Terminal));
-        terminals.add(new Symbol("\t", Symbol.SymbolType.Terminal));
-        terminals.add(new Symbol("\n", Symbol.SymbolType.Terminal));
+    }
+
+    // Returns true for a declaration line of 'Grammar.txt'. Production rules start with their left-hand side nonterminal.
+    private static boolean isDeclaration(String line) {
+        return line.startsWith("%");
     }
 
     // Reads nonterminals from 'Grammar.txt'
@@ -67,10 +340,11 @@ public class Grammar {
         Scanner in = new Scanner(new File(grammarFilePath));
         while (in.hasNext()) {
             String str = in.nextLine();
+            if (isDeclaration(str)) continue;
             String withoutWhitespace = str.replaceAll("\\s", "");
             // Nonterminals occur on the left-hand side of the productions.
             String[] parts = withoutWhitespace.split("->");
-            nonterminals.add(new Symbol(parts[0], Symbol.SymbolType.Nonterminal));
+            nonterminals.add(symbolTable.intern(parts[0], Symbol.SymbolType.Nonterminal));
         }
     }
 
@@ -81,50 +355,32 @@ public class Grammar {
         Scanner in = new Scanner(new File(grammarFilePath));
         while (in.hasNext()) {
             final String str = in.nextLine();
+            if (isDeclaration(str)) continue;
             // Distinguish left and right attributes
             String[] parts = str.split(" -> ");
-            Symbol left = new Symbol(parts[0], Symbol.SymbolType.Nonterminal);
+            Symbol left = symbolTable.intern(parts[0], Symbol.SymbolType.Nonterminal);
             // Decompose merged productions and save separately.
             String[] rightParts = parts[1].split(" \\| ");
             for (String rightStr : rightParts) {
-                ArrayList<Symbol> right = stringIntoSymbols(rightStr, this.getTerminals(), this.getNonterminals());
+                ArrayList<Symbol> right = symbolTrie.split(rightStr);
                 right = eliminateExtraWhitespace(right);
-                productions.add(new Production(left, right));
+                productions.add(new Production(left, right, productions.size()));
             }
         }
     }
 
-    // Receives a string of symbols, and sets of all terminal and nonterminal symbols.
-    // Decomposes the given string into symbols and returns respective ArrayList.
-    // Basically this function is a tokenization of a string into the respective ArrayList of 'symbols'.
-    public static ArrayList<Symbol> stringIntoSymbols(String str, HashSet<Symbol> terminals, HashSet<Symbol> nonterminals) {
-        ArrayList<Symbol> result = new ArrayList<>();
-        while (!str.isEmpty()) {
-            Symbol symbol = firstSymbolInString(str, terminals, nonterminals);
-            result.add(symbol);
-            str = str.substring(symbol.length());
+    // Decomposes the given source string into the tokens of this grammar. This is the input format of the parse engines.
+    // At the CHARACTER level every terminal symbol is a token and the extra whitespace is removed, at the TOKEN level the lexer produces the tokens.
+    public ArrayList<Token> tokenize(String str) {
+        if (level == Level.TOKEN) {
+            return lexer.tokenize(str);
         }
-        return result;
-    }
-
-    // Receives a string of symbols, and sets of all terminal and nonterminal symbols.
-    // Returns the longest terminal/nonterminal symbol starting from index = 0.
-    public static Symbol firstSymbolInString(String str, HashSet<Symbol> terminals, HashSet<Symbol> nonterminals) throws IllegalArgumentException {
-        for (int i = 0; i < str.length(); i++) {
-            String subStr = str.substring(0, str.length() - i);
 
-            Symbol nonterminal = new Symbol(subStr, Symbol.SymbolType.Nonterminal);
-            if (nonterminals.contains(nonterminal)) {
-                return nonterminal;
-            }
-
-            Symbol terminal = new Symbol(subStr, Symbol.SymbolType.Terminal);
-            if (terminals.contains(terminal)) {
-                return terminal;
-            }
+        ArrayList<Token> tokens = new ArrayList<>();
+        for (Symbol symbol : eliminateExtraWhitespace(symbolTrie.split(str))) {
+            tokens.add(new Token(symbol, symbol.getContent()));
         }
-
-        throw new IllegalArgumentException("Can't find the first symbol in this string:  " + str);
+        return tokens;
     }
 
     // Removes all the extra whitespaces in the given validStringArray as specified below
@@ -133,15 +389,9 @@ public class Grammar {
     // 3) Erase all surrounding whitespaces of: , ; ( ) + - * / & | ! < > = [ ]
     public static ArrayList<Symbol> eliminateExtraWhitespace(ArrayList<Symbol> validStringArray) {
 
-        Symbol space = new Symbol(" ", Symbol.SymbolType.Terminal);
-        Symbol tab = new Symbol("\t", Symbol.SymbolType.Terminal);
-        Symbol endLine = new Symbol("\n", Symbol.SymbolType.Terminal);
-
-        HashSet<Symbol> syntaxSymbols = initializeSyntaxSymbols();
-
-
-        Predicate<Symbol> isWhitespace = symbol -> symbol.equals(space) || symbol.equals(tab) || symbol.equals(endLine);
-        Predicate<Symbol> isSyntaxSymbol = syntaxSymbols::contains;
+        Predicate<Symbol> isWhitespace = Grammar::isWhitespace;
+        Predicate<Symbol> isSyntaxSymbol = symbol -> symbol.isTerminal() && SYNTAX_SYMBOLS.contains(symbol.getContent());
+        Predicate<Symbol> isTabOrEndLine = symbol -> isWhitespace.test(symbol) && !symbol.getContent().equals(" ");
 
         ArrayList<Symbol> result = new ArrayList<>();
         // Left to Right loop to remove all the extra whitespace
@@ -150,7 +400,7 @@ public class Grammar {
             Symbol nextSymbol = validStringArray.get(i + 1);
 
             if (isWhitespace.test(currentSymbol)) {
-                if (currentSymbol.equals(tab) || currentSymbol.equals(endLine)) {
+                if (isTabOrEndLine.test(currentSymbol)) {
                     continue;
                 } else {
                     if (isWhitespace.test(nextSymbol)) {
@@ -183,26 +433,25 @@ public class Grammar {
 
     }
 
-    private static HashSet<Symbol> initializeSyntaxSymbols() {
-        HashSet<Symbol> syntaxSymbols = new HashSet<>();
-        syntaxSymbols.add(new Symbol(",", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol(";", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("+", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("-", Symbol.SymbolType.Terminal));
-//        syntaxSymbols.add(new Symbol("*", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("/", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("&", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("|", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("!", Symbol.SymbolType.Terminal));
-        syntaxSymbols.add(new Symbol("=", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol("[", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol("]", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol("(", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol(")", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol("<", Symbol.SymbolType.Terminal));
-        //syntaxSymbols.add(new Symbol(">", Symbol.SymbolType.Terminal));
-        return syntaxSymbols;
-    }
+    // The contents of the terminals around which whitespace is removed.
+    private static final Set<String> SYNTAX_SYMBOLS = Set.of(
+            ",",
+            ";",
+            "+",
+            "-",
+//            "*",
+            "/",
+            "&",
+            "|",
+            "!",
+            "="
+            //"[",
+            //"]",
+            //"(",
+            //")",
+            //"<",
+            //">"
+    );
 
     // Returns a string representation of the entire grammar.
     // Handy for debugging or visual representation.
@@ -228,6 +477,14 @@ public class Grammar {
         return start;
     }
 
+    public Level getLevel() {
+        return level;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
     public HashSet<Symbol> getTerminals() {
         return terminals;
     }
@@ -239,4 +496,57 @@ public class Grammar {
     public List<Production> getProductions() {
         return productions;
     }
+
+    // Returns the productions with the given nonterminal on the left-hand side.
+    public List<Production> getProductions(Symbol left) {
+        return productionsByLeft.getOrDefault(left, Collections.emptyList());
+    }
+
+    // Returns the FIRST set of the given symbol. The FIRST set of a terminal is the terminal itself. The returned set is shared and must not be changed.
+    public TerminalSet getFirst(Symbol symbol) {
+        TerminalSet first = firstSets.get(symbol);
+        return first != null ? first : new TerminalSet(symbolTable);
+    }
+
+    // Returns a new set of all terminals of the grammar.
+    public TerminalSet allTerminals() {
+        TerminalSet result = new TerminalSet(symbolTable);
+        for (Symbol terminal : terminals) {
+            result.add(terminal);
+        }
+        return result;
+    }
+
+    // Returns the declared precedence of the given terminal, or null if it has none.
+    public Precedence getPrecedence(Symbol terminal) {
+        return terminal.isTerminal() ? terminalPrecedences[terminal.getId()] : null;
+    }
+
+    // Returns the precedence of the given production, or null if it has none.
+    public Precedence getPrecedence(Production production) {
+        return productionPrecedences[production.getId()];
+    }
+
+    // Resolves a shift/reduce conflict between a reduction by the given production and a shift of the given lookahead, as yacc does:
+    // the higher precedence wins; on equal precedence, a left-associative operator reduces, a right-associative one shifts, and a nonassociative one is an error.
+    public Resolution resolve(Production reduce, Symbol lookahead) {
+        Precedence reducePrecedence = productionPrecedences[reduce.getId()];
+        if (reducePrecedence == null || lookahead == null) return Resolution.UNRESOLVED;
+        Precedence shiftPrecedence = terminalPrecedences[lookahead.getId()];
+        if (shiftPrecedence == null) return Resolution.UNRESOLVED;
+
+        if (reducePrecedence.level() != shiftPrecedence.level()) {
+            return reducePrecedence.level() > shiftPrecedence.level() ? Resolution.REDUCE : Resolution.SHIFT;
+        }
+        return switch (shiftPrecedence.associativity()) {
+            case LEFT -> Resolution.REDUCE;
+            case RIGHT -> Resolution.SHIFT;
+            case NONASSOC -> Resolution.ERROR;
+        };
+    }
+
+    // Returns true if the given symbol derives the empty string.
+    public boolean isNullable(Symbol symbol) {
+        return nullable.contains(symbol);
+    }
 }
\ No newline at end of file
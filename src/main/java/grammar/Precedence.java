@@ -0,0 +1,20 @@
+package grammar;
+
+// The precedence and associativity of a terminal, declared in 'Grammar.txt' by a line such as "%left + -".
+// Every declaration line is one level, and later lines bind tighter, as in yacc.
+public record Precedence(int level, Associativity associativity) {
+
+    public enum Associativity {
+        LEFT, RIGHT, NONASSOC
+    }
+
+    // Returns the associativity of the given directive, e.g. "%left", or null if it's not one.
+    static Associativity associativityOf(String directive) {
+        return switch (directive) {
+            case "%left" -> Associativity.LEFT;
+            case "%right" -> Associativity.RIGHT;
+            case "%nonassoc" -> Associativity.NONASSOC;
+            default -> null;
+        };
+    }
+}
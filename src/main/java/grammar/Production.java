@@ -10,11 +10,14 @@ public class Production {
     private final Symbol left;
     // The ArrayList of 'Symbol' objects representing the sequence of terminal and/or nonterminal symbols on the right side of the production rule.
     private final ArrayList<Symbol> right;
+    // The position of the production rule in the grammar. Used as a compact, stable identifier of the rule.
+    private final int id;
 
-    // Initializes a production with the specified left and right attributes of the production rule.
-    public Production(final Symbol left, final ArrayList<Symbol> right) {
+    // Initializes a production with the specified left and right attributes of the production rule and its position in the grammar.
+    public Production(final Symbol left, final ArrayList<Symbol> right, final int id) {
         this.left = left;
         this.right = right;
+        this.id = id;
     }
 
     // Returns a string representation of the production rule.
@@ -55,4 +58,13 @@ public class Production {
     public ArrayList<Symbol> getRight() {
         return right;
     }
+
+    public int getId() {
+        return id;
+    }
+
+    // Returns true for a unit production, whose right side is a single nonterminal.
+    public boolean isUnit() {
+        return right.size() == 1 && !right.get(0).isTerminal();
+    }
 }
\ No newline at end of file
@@ -11,11 +11,14 @@ public class Symbol {
     private final String content;
     // An enum indicating whether the symbol is terminal ar a nonterminal.
     private final SymbolType type;
+    // The dense id given by the ‘SymbolTable’ of the grammar. Terminal ids come before nonterminal ids.
+    private final int id;
 
-    // Initializes a symbol with the specified content and type.
-    public Symbol(String content, SymbolType type) {
+    // Initializes a symbol with the specified content, type and id. Symbols are only created by ‘SymbolTable.intern’.
+    Symbol(String content, SymbolType type, int id) {
         this.content = content;
         this.type = type;
+        this.id = id;
     }
 
     // Returns true if the symbol is terminal, returns false otherwise.
@@ -34,27 +37,16 @@ public class Symbol {
         return content;
     }
 
-    // Determines whether two 'Symbol' objects are identical in both content and type.
-    // This is essential for comparison operations, ensuring symbols are uniquely identified by both their content and type.
+    // Symbols are interned by the ‘SymbolTable’ of the grammar, so two symbols are equal only if they are the same instance.
     @Override
     public boolean equals(Object obj){
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null || getClass() != obj.getClass()) {
-            return false;
-        }
-        Symbol symbol = (Symbol) obj;
-        return type.equals(symbol.getType()) && content.equals(symbol.getContent());
+        return this == obj;
     }
 
-    // Returns a hash code of the symbol.
-    // Ensuring correct hash code calculation to correctly implement hash sets and hash maps.
+    // Returns the id of the symbol, which is unique within its grammar.
     @Override
     public int hashCode() {
-        int result = content.hashCode();
-        result = 31 * result + (type == SymbolType.Terminal ? 1 : 0);
-        return result;
+        return id;
     }
 
     public String getContent() {
@@ -65,4 +57,8 @@ public class Symbol {
         return type;
     }
 
+    public int getId() {
+        return id;
+    }
+
 }
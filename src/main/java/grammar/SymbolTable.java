@@ -0,0 +1,63 @@
+package grammar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Interns the symbols of a grammar. Every terminal and nonterminal has a single canonical ‘Symbol’ instance with a dense int id.
+// All terminals are interned before the first nonterminal, so terminal ids are 0..terminalCount-1 and nonterminal ids follow them.
+// Downstream structures can therefore index arrays by symbol id, and compare symbols by reference.
+public class SymbolTable {
+
+    // The symbols by their ids.
+    private final List<Symbol> symbols = new ArrayList<>();
+    // The symbols by their contents, one map per symbol type.
+    private final Map<String, Symbol> terminals = new HashMap<>();
+    private final Map<String, Symbol> nonterminals = new HashMap<>();
+
+    // Returns the canonical symbol with the given content and type, creating it with the next id if it doesn't exist yet.
+    public Symbol intern(String content, Symbol.SymbolType type) {
+        Map<String, Symbol> byContent = type == Symbol.SymbolType.Terminal ? terminals : nonterminals;
+
+        Symbol symbol = byContent.get(content);
+        if (symbol != null) return symbol;
+
+        if (type == Symbol.SymbolType.Terminal && !nonterminals.isEmpty()) {
+            throw new IllegalStateException("Terminals must be interned before nonterminals: " + content);
+        }
+        symbol = new Symbol(content, type, symbols.size());
+        symbols.add(symbol);
+        byContent.put(content, symbol);
+        return symbol;
+    }
+
+    // Returns the canonical symbol with the given content and type, or null if there is none.
+    public Symbol lookup(String content, Symbol.SymbolType type) {
+        return (type == Symbol.SymbolType.Terminal ? terminals : nonterminals).get(content);
+    }
+
+    // Returns the symbol with the given id.
+    public Symbol get(int id) {
+        return symbols.get(id);
+    }
+
+    // Removes all symbols. Symbols interned afterwards start again at id 0.
+    void clear() {
+        symbols.clear();
+        terminals.clear();
+        nonterminals.clear();
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    public int getTerminalCount() {
+        return terminals.size();
+    }
+
+    public int getNonterminalCount() {
+        return nonterminals.size();
+    }
+}
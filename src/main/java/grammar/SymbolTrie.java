@@ -0,0 +1,82 @@
+package grammar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+// A character trie over the contents of all terminal and nonterminal symbols of a grammar.
+// Splitting a string into symbols is a single left-to-right pass: from each position the trie is walked as far as the input allows,
+// and the longest symbol seen on the way is taken. No substrings or symbols are allocated, the returned symbols are the instances the trie was built from.
+public class SymbolTrie {
+
+    // Transitions of the trie nodes over ASCII characters, node 0 is the root. -1 marks a missing transition.
+    private final ArrayList<int[]> transitions = new ArrayList<>();
+    // The symbol whose content ends at each node, or null.
+    private final ArrayList<Symbol> accepts = new ArrayList<>();
+
+    // Builds the trie of the given symbols. Where a terminal and a nonterminal have the same content, the nonterminal wins.
+    public SymbolTrie(Collection<Symbol> terminals, Collection<Symbol> nonterminals) {
+        addNode();
+        for (Symbol terminal : terminals) {
+            add(terminal);
+        }
+        for (Symbol nonterminal : nonterminals) {
+            add(nonterminal);
+        }
+    }
+
+    private int addNode() {
+        int[] next = new int[128];
+        Arrays.fill(next, -1);
+        transitions.add(next);
+        accepts.add(null);
+        return transitions.size() - 1;
+    }
+
+    private void add(Symbol symbol) {
+        int node = 0;
+        for (int i = 0; i < symbol.length(); i++) {
+            char c = symbol.getContent().charAt(i);
+            if (c >= 128) {
+                throw new IllegalArgumentException("Symbols must be ASCII: " + symbol);
+            }
+            if (transitions.get(node)[c] == -1) {
+                int child = addNode();
+                transitions.get(node)[c] = child;
+            }
+            node = transitions.get(node)[c];
+        }
+        accepts.set(node, symbol);
+    }
+
+    // Returns the longest symbol that starts at the given index of the string, or null if no symbol does.
+    public Symbol longestMatch(String str, int from) {
+        Symbol result = null;
+        int node = 0;
+        for (int i = from; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c >= 128) break;
+            node = transitions.get(node)[c];
+            if (node == -1) break;
+            if (accepts.get(node) != null) {
+                result = accepts.get(node);
+            }
+        }
+        return result;
+    }
+
+    // Decomposes the given string into the longest symbols, from left to right.
+    public ArrayList<Symbol> split(String str) throws IllegalArgumentException {
+        ArrayList<Symbol> result = new ArrayList<>();
+        int i = 0;
+        while (i < str.length()) {
+            Symbol symbol = longestMatch(str, i);
+            if (symbol == null) {
+                throw new IllegalArgumentException("Can't find the first symbol in this string:  " + str.substring(i));
+            }
+            result.add(symbol);
+            i += symbol.length();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package grammar;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// A set of terminals of one grammar, stored as a fixed-width bitset over the terminal ids given by its ‘SymbolTable’.
+// Union, equality, intersection and membership are operations on 64-bit words, instead of hashing every symbol.
+// Iterating yields the terminals in the order of their ids.
+public final class TerminalSet implements Iterable<Symbol> {
+
+    // The symbol table that gives the terminals of the bits.
+    private final SymbolTable symbolTable;
+    // Bit i of word i / 64 is set if the terminal with id i is in the set.
+    private final long[] words;
+
+    // Creates an empty set, wide enough for all terminals of the given symbol table.
+    public TerminalSet(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        this.words = new long[(symbolTable.getTerminalCount() + 63) >>> 6];
+    }
+
+    private TerminalSet(SymbolTable symbolTable, long[] words) {
+        this.symbolTable = symbolTable;
+        this.words = words;
+    }
+
+    // Returns a copy of this set, which can be changed independently.
+    public TerminalSet copy() {
+        return new TerminalSet(symbolTable, words.clone());
+    }
+
+    // Returns a copy of this set over the given symbol table, e.g. of an edited grammar. The table must give the terminals the same ids.
+    public TerminalSet copy(SymbolTable symbolTable) {
+        if (symbolTable.getTerminalCount() != this.symbolTable.getTerminalCount()) {
+            throw new IllegalArgumentException("The symbol tables have different terminals");
+        }
+        return new TerminalSet(symbolTable, words.clone());
+    }
+
+    // Adds the given terminal. Returns true if it wasn't in the set yet.
+    public boolean add(Symbol terminal) {
+        if (!terminal.isTerminal()) {
+            throw new IllegalArgumentException("Not a terminal: " + terminal);
+        }
+        int id = terminal.getId();
+        long bit = 1L << id;
+        if ((words[id >>> 6] & bit) != 0) return false;
+        words[id >>> 6] |= bit;
+        return true;
+    }
+
+    // Adds all terminals of the given set. Returns true if this set changed.
+    public boolean addAll(TerminalSet other) {
+        boolean changed = false;
+        for (int i = 0; i < words.length; i++) {
+            long union = words[i] | other.words[i];
+            if (union != words[i]) {
+                words[i] = union;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Removes all terminals that are not in the given set.
+    public void retainAll(TerminalSet other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    // Returns true if the given symbol is a terminal in the set. Nonterminals are never in the set.
+    public boolean contains(Symbol symbol) {
+        if (symbol == null || !symbol.isTerminal()) return false;
+        int id = symbol.getId();
+        return (words[id >>> 6] & (1L << id)) != 0;
+    }
+
+    // Returns true if this set and the given set have a terminal in common.
+    public boolean intersects(TerminalSet other) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Symbol> iterator() {
+        return new Iterator<>() {
+            private int next = nextId(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Symbol next() {
+                if (next < 0) throw new NoSuchElementException();
+                Symbol symbol = symbolTable.get(next);
+                next = nextId(next + 1);
+                return symbol;
+            }
+        };
+    }
+
+    // Returns the smallest id in the set that is at least 'from', or -1 if there is none.
+    private int nextId(int from) {
+        int i = from >>> 6;
+        if (i >= words.length) return -1;
+        long word = words[i] & (-1L << from);
+        while (true) {
+            if (word != 0) return (i << 6) + Long.numberOfTrailingZeros(word);
+            if (++i == words.length) return -1;
+            word = words[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Symbol terminal : this) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(terminal.getContent());
+        }
+        return sb.append("]").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(words, ((TerminalSet) obj).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
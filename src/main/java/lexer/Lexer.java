@@ -0,0 +1,108 @@
+package lexer;
+
+import grammar.Grammar;
+import grammar.Symbol;
+import grammar.SymbolTrie;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A DFA lexer for token-level grammars. It turns source text into identifier, number, keyword and operator tokens and drops whitespace.
+// - identifiers: a letter followed by letters and digits; an identifier whose text is a keyword terminal of the grammar becomes that keyword
+// - numbers: a sequence of digits, optionally followed by the unsigned suffix 'u'
+// - operators: the longest match among the remaining terminals of the grammar, found by a ‘SymbolTrie’ over them
+public class Lexer {
+
+    // The token kinds for identifiers and numbers, and the terminal of the unsigned suffix, if the grammar has one.
+    private final Symbol identifier;
+    private final Symbol number;
+    private final Symbol unsignedSuffix;
+    // The terminals made of more than one letter, by their text.
+    private final Map<String, Symbol> keywords = new HashMap<>();
+
+    // The trie of the operator terminals.
+    private final SymbolTrie operators;
+
+    // Builds the lexer for the terminals of the given token-level grammar.
+    public Lexer(Grammar g) {
+        identifier = findTerminal(g, Grammar.IDENTIFIER);
+        number = findTerminal(g, Grammar.NUMBER);
+        unsignedSuffix = findTerminal(g, Grammar.UNSIGNED_SUFFIX);
+
+        List<Symbol> operatorTerminals = new ArrayList<>();
+        for (Symbol terminal : g.getTerminals()) {
+            String content = terminal.getContent();
+            if (terminal == identifier || terminal == number) continue;
+
+            if (content.chars().allMatch(Character::isLetter)) {
+                if (content.length() > 1) {
+                    keywords.put(content, terminal);
+                }
+            } else {
+                operatorTerminals.add(terminal);
+            }
+        }
+        operators = new SymbolTrie(operatorTerminals, List.of());
+    }
+
+    private static Symbol findTerminal(Grammar g, String content) {
+        return g.getSymbolTable().lookup(content, Symbol.SymbolType.Terminal);
+    }
+
+    // Decomposes the given source string into tokens.
+    public ArrayList<Token> tokenize(String source) {
+        ArrayList<Token> tokens = new ArrayList<>();
+
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (isLetter(c)) {
+                int end = i + 1;
+                while (end < source.length() && isLetterOrDigit(source.charAt(end))) end++;
+
+                String text = source.substring(i, end);
+                tokens.add(new Token(keywords.getOrDefault(text, identifier), text));
+                i = end;
+            } else if (isDigit(c)) {
+                int end = i + 1;
+                while (end < source.length() && isDigit(source.charAt(end))) end++;
+
+                tokens.add(new Token(number, source.substring(i, end)));
+                i = end;
+
+                // 14u: the suffix is a token of its own, as long as it doesn't start an identifier
+                if (unsignedSuffix != null && i < source.length() && source.charAt(i) == 'u'
+                        && (i + 1 == source.length() || !isLetterOrDigit(source.charAt(i + 1)))) {
+                    tokens.add(new Token(unsignedSuffix, unsignedSuffix.getContent()));
+                    i++;
+                }
+            } else {
+                Symbol operator = operators.longestMatch(source, i);
+                if (operator == null) {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' at " + i);
+                }
+                tokens.add(new Token(operator, operator.getContent()));
+                i += operator.length();
+            }
+        }
+
+        return tokens;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isLetter(c) || isDigit(c);
+    }
+}
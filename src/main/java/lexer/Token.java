@@ -0,0 +1,8 @@
+package lexer;
+
+import grammar.Symbol;
+
+// A terminal symbol of the input together with the source text it was read from.
+// For a character-level grammar the text is the content of the symbol, for a token-level grammar it is the lexeme, e.g. the name of an identifier.
+public record Token(Symbol kind, String text) {
+}
@@ -1,5 +1,7 @@
 package model;
 
+import ast.Body;
+import ast.Lowering;
 import exceptions.memory.MemoryStructException;
 import exceptions.typedef.TypeDefException;
 import exceptions.typedef.TypeNotDefinedException;
@@ -36,6 +38,8 @@ public class Fun {
      */
     private final int numParameters;
     private final DTE body;
+    // The body lowered for the code generator, made when it is first needed.
+    private Body loweredBody;
 
 
     public Fun(String name,
@@ -70,6 +74,14 @@ public class Fun {
         return body;
     }
 
+    // Returns the body as typed nodes, see ‘Lowering’. It is lowered once, however often the function is called.
+    public Body getLoweredBody() {
+        if (loweredBody == null) {
+            loweredBody = Lowering.lowerBody(body);
+        }
+        return loweredBody;
+    }
+
     public int getSize() {
         if (memoryStruct == null) return 0;
         return memoryStruct.getType().size;
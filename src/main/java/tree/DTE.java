@@ -1,55 +1,27 @@
 package tree;
 
-import dk.Item;
 import grammar.Symbol;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
 import static util.Logger.log;
 
+// A node of a derivation tree: a view of node 'node' of a ‘TreeStore’, which holds the labels and links of all nodes of the tree.
+// Views are made as the tree is navigated; two views of the same node are equal.
 public class DTE {
 
-    private final Symbol label;
-    private DTE father;
-    private DTE firstSon;
-    private DTE brother;
+    private final TreeStore store;
+    private final int node;
 
-    public DTE(Symbol label) {
-        this.label = label;
+    DTE(TreeStore store, int node) {
+        this.store = store;
+        this.node = node;
     }
 
-    public static ArrayList<DTE> updateTheParseTree(ArrayList<DTE> parseTree, Item handle) {
-
-        Symbol parentSymbol = handle.getProduction().getLeft();
-        int rightIndex = handle.getDotIndex();
-        int leftIndex = rightIndex - handle.getProduction().getRight().size();
-
-        // Make Brothers
-        for (int i = leftIndex; i < rightIndex - 1; i++) {
-            parseTree.get(i).setBrother(parseTree.get(i + 1));
-        }
-
-        // Create father and make connection
-        DTE father = new DTE(parentSymbol);
-        father.setFirstSon(parseTree.get(leftIndex));
-        for (int i = leftIndex; i < rightIndex; i++) {
-            parseTree.get(i).setFather(father);
-        }
-
-        // Erase Children from the parse tree array and put father in their place
-        ArrayList<DTE> newParseTree = new ArrayList<>();
-
-        for (int i = 0; i < leftIndex; i++) {
-            newParseTree.add(parseTree.get(i));
-        }
-        newParseTree.add(father);
-        for (int i = rightIndex; i < parseTree.size(); i++) {
-            newParseTree.add(parseTree.get(i));
-        }
-
-        return newParseTree;
+    // Returns the view of the given node of the store, or null for NONE.
+    private DTE view(int node) {
+        return node == TreeStore.NONE ? null : new DTE(store, node);
     }
 
     public boolean isType(String type) {
@@ -57,28 +29,38 @@ public class DTE {
     }
 
     public List<DTE> getFlattenedSequence() {
-        if (label == null) return null;
         List<DTE> result = new LinkedList<>();
 
         // XS -> XS; X
-        if (firstSon.getBrother() == null) {
-            result.add(firstSon);
+        DTE first = getFirstSon();
+        if (first.getBrother() == null) {
+            result.add(first);
         } else {
-            result.addAll(firstSon.getFlattenedSequence());
-            result.add(firstSon.getNthBrother(2));
+            result.addAll(first.getFlattenedSequence());
+            result.add(first.getNthBrother(2));
         }
 
         return result;
     }
 
+    // Returns the text of the leaves of this node. It is a slice of the text of the whole tree, made once per leaf and on every call for inner nodes;
+    // use ‘getBorderSequence’ where a view will do.
     public String getBorderWord() {
-        if (label.isTerminal()) return labelContent();
-        StringBuilder sb = new StringBuilder();
-        for (DTE dte = firstSon; dte != null; dte = dte.brother) {
-            sb.append(dte.getBorderWord());
-        }
+        return store.borderWord(node);
+    }
 
-        return sb.toString();
+    // Returns the text of the leaves of this node as a view of the text of the whole tree, without copying it.
+    public CharSequence getBorderSequence() {
+        return store.borderSequence(node);
+    }
+
+    // Returns the offsets of the text of this node in the text of the whole tree: the border word is the text from the start up to the end.
+    public int getStart() {
+        return store.start(node);
+    }
+
+    public int getEnd() {
+        return store.end(node);
     }
 
     public List<List<String>> extractComponentPairs() {
@@ -103,16 +85,16 @@ public class DTE {
         int result = 0;
         var curr = this;
         //
-        while (curr != null && curr.firstSon != null) {
+        while (curr != null && curr.getFirstSon() != null) {
             result++;
-            curr = curr.firstSon.brother;
+            curr = curr.getFirstSon().storedBrother();
         }
         return result;
     }
 
     public int getSiblingCount() {
         int result = 0;
-        for (DTE curr = this; curr != null; curr = curr.brother) {
+        for (DTE curr = this; curr != null; curr = curr.storedBrother()) {
             result++;
         }
         return result;
@@ -123,11 +105,10 @@ public class DTE {
 
         StringBuilder sb = new StringBuilder();
 
-        if (label == null) return "";
-        if (label.isTerminal()) return labelContent();
+        if (getLabel().isTerminal()) return getBorderWord();
 
         sb.append(labelContent());
-        for (DTE dte = firstSon; dte != null; dte = dte.brother) {
+        for (DTE dte = getFirstSon(); dte != null; dte = dte.storedBrother()) {
             sb.append("\n\t|- ").append(dte);
         }
         return sb.toString();
@@ -147,6 +128,8 @@ public class DTE {
         }
 
         System.out.println(builder + labelContent());
+        DTE brother = storedBrother();
+        DTE firstSon = getFirstSon();
         if (firstSon != null) {
             firstSon.printTree(level + 1, brother == null);
         }
@@ -156,28 +139,38 @@ public class DTE {
         }
     }
 
-    public Symbol getLabel() {
-        return label;
+    // Two views are equal if they show the same node of the same store.
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DTE dte && dte.store == store && dte.node == node;
     }
 
-    public DTE getFather() {
-        return father;
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(store) + node;
     }
 
-    private void setFather(DTE father) {
-        this.father = father;
+    public Symbol getLabel() {
+        return store.label(node);
+    }
+
+    public DTE getFather() {
+        return view(store.father(node));
     }
 
     public DTE getFirstSon() {
-        return firstSon;
+        return view(store.firstSon(node));
     }
 
-    private void setFirstSon(DTE firstSon) {
-        this.firstSon = firstSon;
+    // Returns the next brother as it is stored, including whitespace.
+    private DTE storedBrother() {
+        return view(store.brother(node));
     }
 
+    // Returns the next brother, skipping whitespace. A tree built without layout has none, so this is a plain hop.
     public DTE getBrother() {
-        DTE res = brother;
+        if (!store.hasLayout()) return storedBrother();
+        DTE res = storedBrother();
         if (res == null || !res.isType(" ")) return res;
         return res.getBrother();
     }
@@ -197,12 +190,15 @@ public class DTE {
         return result.getNthBrother(n - 1);
     }
 
-    private void setBrother(DTE brother) {
-        this.brother = brother;
+    public String labelContent() {
+        return getLabel().getContent();
     }
 
-    public String labelContent() {
-        if (label == null) return null;
-        return label.getContent();
+    TreeStore getStore() {
+        return store;
+    }
+
+    int getNode() {
+        return node;
     }
 }
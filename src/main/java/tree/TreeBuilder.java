@@ -0,0 +1,112 @@
+package tree;
+
+import grammar.Production;
+import grammar.Symbol;
+import grammar.SymbolTable;
+
+import java.util.Arrays;
+
+// Builds a derivation tree bottom-up, on the value stack of a shift-reduce parser: the stack holds the roots of the subtrees made so far, as nodes of a ‘TreeStore’.
+// A shift pushes a leaf. A reduction pops the roots of the right-hand side, links them as the sons of a new father in place and pushes the father.
+// Every step is constant time for a production of bounded length and only adds the new node to the store; no views and no lists are made.
+// With 'dropLayout', the layout terminals (whitespace) get no leaves: their text stays in the border words, but they are left out of the sons of their father,
+// so the brothers of a node are its neighbours in the right-hand side without the whitespace between them.
+public class TreeBuilder {
+
+    private final TreeStore store;
+    // The ids of the layout terminals whose leaves are dropped; null if all leaves are kept.
+    private final boolean[] layout;
+
+    // The value stack: the roots of the subtrees made so far, from left to right, and the offsets of their text. A dropped leaf is NONE, with the span of its text.
+    private int[] stack = new int[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int size;
+
+    // Creates a builder for a parse of the given number of tokens, over the symbols of the given table, that keeps all leaves.
+    public TreeBuilder(SymbolTable symbolTable, int tokenCount) {
+        this(symbolTable, tokenCount, false);
+    }
+
+    // Creates a builder for a parse of the given number of tokens, over the symbols of the given table. With 'dropLayout', whitespace terminals get no leaves.
+    public TreeBuilder(SymbolTable symbolTable, int tokenCount, boolean dropLayout) {
+        store = new TreeStore(symbolTable, 2 * tokenCount);
+        layout = dropLayout ? layoutTerminals(symbolTable) : null;
+        if (dropLayout) {
+            store.dropLayout();
+        }
+    }
+
+    // Marks the terminals whose content is blank: the space, the tab and the line break.
+    private static boolean[] layoutTerminals(SymbolTable symbolTable) {
+        boolean[] result = new boolean[symbolTable.getTerminalCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = symbolTable.get(i).getContent().isBlank();
+        }
+        return result;
+    }
+
+    // Pushes a leaf with the given terminal and source text.
+    public void shift(Symbol terminal, String text) {
+        grow();
+        if (layout != null && terminal.getId() < layout.length && layout[terminal.getId()]) {
+            starts[size] = store.textLength();
+            ends[size] = store.appendText(terminal, text);
+            stack[size++] = TreeStore.NONE;
+            return;
+        }
+        int leaf = store.addLeaf(terminal, text);
+        starts[size] = store.start(leaf);
+        ends[size] = store.end(leaf);
+        stack[size++] = leaf;
+    }
+
+    // Replaces the roots of the right-hand side of the given production, on top of the stack, by a father labelled with its left-hand side.
+    public void reduce(Production production) {
+        reduce(production.getLeft(), production.getRight().size());
+    }
+
+    // Replaces the given number of roots on top of the stack by a father with the given label.
+    public void reduce(Symbol left, int length) {
+        if (length > size) {
+            throw new IllegalArgumentException("Cannot reduce " + length + " of " + size + " subtrees to " + left);
+        }
+        grow();
+        int from = size - length;
+        int start = length > 0 ? starts[from] : store.textLength();
+        int end = length > 0 ? ends[size - 1] : store.textLength();
+        int father = store.addFather(left, stack, from, size, start, end);
+        size = from;
+        starts[size] = start;
+        ends[size] = end;
+        stack[size++] = father;
+    }
+
+    // Reduces the root on top of the stack by the unit production 'left -> label' without making a new node, see ‘TreeStore.collapseUnitProduction’.
+    // A dropped leaf has no node to relabel, so it gets a father without sons.
+    public void collapseUnitProduction(Symbol left) {
+        if (stack[size - 1] == TreeStore.NONE) {
+            reduce(left, 1);
+            return;
+        }
+        store.collapseUnitProduction(stack[size - 1], left);
+    }
+
+    private void grow() {
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, 2 * size);
+            starts = Arrays.copyOf(starts, 2 * size);
+            ends = Arrays.copyOf(ends, 2 * size);
+        }
+    }
+
+    // Returns the number of roots on the stack, counting dropped leaves.
+    public int size() {
+        return size;
+    }
+
+    // Returns the root of the first subtree, which is the whole tree once the parse is accepted.
+    public DTE getRoot() {
+        return new DTE(store, stack[0]);
+    }
+}
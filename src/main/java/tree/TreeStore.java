@@ -0,0 +1,228 @@
+package tree;
+
+import grammar.Symbol;
+import grammar.SymbolTable;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+// Stores the nodes of derivation trees in growable primitive arrays instead of one object per node: the label id, the father, the first son and the brother
+// of node i are labels[i], fathers[i], firstSons[i] and brothers[i]. A ‘DTE’ is a view of one node of a store, made when the tree is navigated.
+// A character-level parse makes hundreds of thousands of nodes; here they take about 24 bytes each and no objects for the garbage collector to trace.
+// The parsers make one store per parse, through a ‘TreeBuilder’ that adds the leaves and fathers as they shift and reduce.
+// The texts of the leaves are appended to one buffer as they are shifted, and every node spans the text of its leaves in it, from starts[i] to ends[i].
+// So the border word of a node is a slice of the buffer and never walks the subtree.
+// A store built without layout has no whitespace leaves; their text is still in the buffer, between the spans of the leaves around them.
+public class TreeStore {
+
+    // Marks a missing father, son or brother, and an empty unit chain.
+    static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The symbol table that gives the symbols of the label ids.
+    private final SymbolTable symbolTable;
+
+    private int size;
+    private int[] labels;
+    private int[] fathers;
+    private int[] firstSons;
+    private int[] brothers;
+    private int[] starts;
+    private int[] ends;
+    // The first entry of the unit chain of every node, NONE if there is none.
+    private int[] unitChains;
+
+    // The entries of the unit chains of collapsed unit productions, as linked lists: the label id of the skipped node and the next entry below it.
+    private int chainSize;
+    private int[] chainLabels = new int[INITIAL_CAPACITY];
+    private int[] chainNext = new int[INITIAL_CAPACITY];
+
+    // The texts of all leaves in the order they were added. For a token-level grammar these are the lexemes without the whitespace between them.
+    private final StringBuilder leafText = new StringBuilder();
+    // The leaf texts as a string, made when a border word is first needed after leaves were added.
+    private String source = "";
+    // The border words of the leaves, made at most once per leaf. Null until the first one is needed.
+    private String[] borderWords;
+    // Whether whitespace leaves may occur, i.e. the store was not built with 'dropLayout'.
+    private boolean layout = true;
+
+    // Creates an empty store for the symbols of the given table.
+    public TreeStore(SymbolTable symbolTable) {
+        this(symbolTable, INITIAL_CAPACITY);
+    }
+
+    // Creates an empty store with room for the given number of nodes before it grows. A parse makes about two nodes per token.
+    public TreeStore(SymbolTable symbolTable, int capacity) {
+        this.symbolTable = symbolTable;
+        capacity = Math.max(capacity, 1);
+        labels = new int[capacity];
+        fathers = new int[capacity];
+        firstSons = new int[capacity];
+        brothers = new int[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        unitChains = new int[capacity];
+    }
+
+    // Adds a leaf with the given terminal and source text and returns its index. Without a text, the content of the terminal is its text.
+    int addLeaf(Symbol label, String text) {
+        int node = addNode(label);
+        starts[node] = leafText.length();
+        ends[node] = appendText(label, text);
+        return node;
+    }
+
+    // Appends the text of a leaf that gets no node, and returns the end of the text. Without a text, the content of the terminal is its text.
+    int appendText(Symbol label, String text) {
+        leafText.append(text != null ? text : label.getContent());
+        return leafText.length();
+    }
+
+    // Returns the length of the leaf texts so far, the start of the next leaf.
+    int textLength() {
+        return leafText.length();
+    }
+
+    // Adds a father with the given label and text span for the nodes sons[from] to sons[to - 1], which become brothers in their order, and returns its index.
+    // The sons must be roots; NONE entries are dropped leaves and are skipped.
+    int addFather(Symbol label, int[] sons, int from, int to, int start, int end) {
+        int father = addNode(label);
+        starts[father] = start;
+        ends[father] = end;
+        int previous = NONE;
+        for (int i = from; i < to; i++) {
+            int son = sons[i];
+            if (son == NONE) continue;
+            fathers[son] = father;
+            if (previous == NONE) {
+                firstSons[father] = son;
+            } else {
+                brothers[previous] = son;
+            }
+            previous = son;
+        }
+        return father;
+    }
+
+    private int addNode(Symbol label) {
+        if (size == labels.length) {
+            int capacity = 2 * size;
+            labels = Arrays.copyOf(labels, capacity);
+            fathers = Arrays.copyOf(fathers, capacity);
+            firstSons = Arrays.copyOf(firstSons, capacity);
+            brothers = Arrays.copyOf(brothers, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            unitChains = Arrays.copyOf(unitChains, capacity);
+        }
+        int node = size++;
+        labels[node] = label.getId();
+        fathers[node] = NONE;
+        firstSons[node] = NONE;
+        brothers[node] = NONE;
+        unitChains[node] = NONE;
+        return node;
+    }
+
+    // Reduces the given node by the unit production 'left -> label' without making a new node: the node takes the label 'left' and records its old label.
+    // The skipped node is made when the sons of the node are first visited, so the tree reads the same as if the parser had made it.
+    void collapseUnitProduction(int node, Symbol left) {
+        if (chainSize == chainLabels.length) {
+            chainLabels = Arrays.copyOf(chainLabels, 2 * chainSize);
+            chainNext = Arrays.copyOf(chainNext, 2 * chainSize);
+        }
+        int entry = chainSize++;
+        chainLabels[entry] = labels[node];
+        chainNext[entry] = unitChains[node];
+        unitChains[node] = entry;
+        labels[node] = left.getId();
+    }
+
+    // Makes the node right below the given one in its collapsed unit chain, which takes over the sons and the rest of the chain.
+    private void expandUnitChain(int node) {
+        int entry = unitChains[node];
+        int son = addNode(symbolTable.get(chainLabels[entry]));
+        unitChains[son] = chainNext[entry];
+        unitChains[node] = NONE;
+        starts[son] = starts[node];
+        ends[son] = ends[node];
+
+        firstSons[son] = firstSons[node];
+        for (int next = firstSons[node]; next != NONE; next = brothers[next]) {
+            fathers[next] = son;
+        }
+        fathers[son] = node;
+        firstSons[node] = son;
+    }
+
+    Symbol label(int node) {
+        return symbolTable.get(labels[node]);
+    }
+
+    int start(int node) {
+        return starts[node];
+    }
+
+    int end(int node) {
+        return ends[node];
+    }
+
+    // Returns the border word of the given node, the text of its leaves. The border words of leaves are cut from the leaf texts once and then kept.
+    // Those of inner nodes are cut anew on every call: keeping them would hold every character once per ancestor of its leaf.
+    String borderWord(int node) {
+        if (firstSons[node] != NONE || unitChains[node] != NONE) {
+            return source().substring(starts[node], ends[node]);
+        }
+        if (borderWords == null || borderWords.length <= node) {
+            borderWords = borderWords == null ? new String[labels.length] : Arrays.copyOf(borderWords, labels.length);
+        }
+        String result = borderWords[node];
+        if (result == null) {
+            result = source().substring(starts[node], ends[node]);
+            borderWords[node] = result;
+        }
+        return result;
+    }
+
+    // Returns the border word of the given node as a read-only view of the leaf texts, without copying.
+    CharSequence borderSequence(int node) {
+        return CharBuffer.wrap(source(), starts[node], ends[node]);
+    }
+
+    private String source() {
+        if (source.length() != leafText.length()) {
+            source = leafText.toString();
+        }
+        return source;
+    }
+
+    int father(int node) {
+        return fathers[node];
+    }
+
+    // Returns the first son of the given node, making the skipped node first if the node has a collapsed unit chain.
+    int firstSon(int node) {
+        if (unitChains[node] != NONE) expandUnitChain(node);
+        return firstSons[node];
+    }
+
+    int brother(int node) {
+        return brothers[node];
+    }
+
+    // Marks the store as built without whitespace leaves.
+    void dropLayout() {
+        layout = false;
+    }
+
+    // Returns whether the store may hold whitespace leaves.
+    boolean hasLayout() {
+        return layout;
+    }
+
+    // Returns the number of nodes in the store.
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,74 @@
+package dk;
+
+import grammar.Grammar;
+import lexer.Token;
+import org.junit.Test;
+import util.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+// Invalid programs must be rejected with a syntax error, an ‘IllegalArgumentException’, by every engine of ‘DK1’ and both parse tables with and without
+// collapsed unit chains.
+public class SyntaxErrorTest {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+
+    // Valid programs followed by more input: the start symbol is reduced before the end of the input.
+    private static final String[] TRAILING_INPUT = {
+            "int x; int main(){x=-14; return 1}~~",
+            "int x; int main(){x=-14; return 1}~ int",
+    };
+
+    @Test
+    public void trailingInputCharacterLevel() throws IOException {
+        assertSyntaxErrors(Grammar.Level.CHARACTER, TRAILING_INPUT);
+    }
+
+    @Test
+    public void trailingInputTokenLevel() throws IOException {
+        assertSyntaxErrors(Grammar.Level.TOKEN, TRAILING_INPUT);
+    }
+
+    // A syntax error names the text of the offending token, not its terminal.
+    @Test
+    public void tokenTextInMessage() throws IOException {
+        Context.DEBUG = false;
+
+        Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, Grammar.Level.TOKEN);
+        DK1 dk1 = new DK1(g);
+        ParseTable table = dk1.getParseTable();
+        String program = "int x; int main(){x=-14 15; return 1}~";
+        String expected = "Syntax error at symbol 12: \"15\"";
+
+        assertEquals(expected, assertThrows(IllegalArgumentException.class, () -> table.parseString(program)).getMessage());
+        assertEquals(expected, assertThrows(IllegalArgumentException.class, () -> new CompressedParseTable(table).parseString(program)).getMessage());
+        assertEquals(expected, assertThrows(IllegalArgumentException.class, () -> dk1.parseString(program, DK1.Engine.SHIFT_REDUCE)).getMessage());
+    }
+
+    private static void assertSyntaxErrors(Grammar.Level level, String[] programs) throws IOException {
+        Context.DEBUG = false;
+
+        Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+        DK1 dk1 = new DK1(g);
+        ParseTable table = dk1.getParseTable();
+        CompressedParseTable compressed = new CompressedParseTable(table);
+
+        for (String program : programs) {
+            ArrayList<Token> tokens = g.tokenize(program);
+            for (DK1.Engine engine : DK1.Engine.values()) {
+                assertThrows(level + ", engine " + engine + ": " + program, IllegalArgumentException.class, () -> dk1.parseString(program, engine));
+            }
+            for (boolean collapseUnitChains : new boolean[]{true, false}) {
+                assertThrows(level + ", parse table, collapsed " + collapseUnitChains + ": " + program,
+                        IllegalArgumentException.class, () -> table.parse(tokens, collapseUnitChains));
+                assertThrows(level + ", compressed parse table, collapsed " + collapseUnitChains + ": " + program,
+                        IllegalArgumentException.class, () -> compressed.parse(tokens, collapseUnitChains));
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package dk;
+
+import grammar.Grammar;
+import lexer.Token;
+import org.junit.Test;
+import tree.DTE;
+import util.Context;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+// Every engine of ‘DK1’, and both parse tables with and without collapsed unit chains, must build the trees that the parser built before
+// ‘TreeBuilder’ for the test programs of ‘Main’.
+// The expected trees were printed by the forest-copying parser: the baseline for the CHARACTER level, the commit that added the TOKEN level for that level.
+public class TreeEqualityTest {
+
+    private static final String GRAMMAR_FILE_PATH = "src/main/java/grammar/Grammar.txt";
+    private static final String TERMINALS_FILE_PATH = "src/main/java/grammar/Terminals.txt";
+    // One file per level: for every program a line with the program, then its tree as printed by 'describe', then an empty line.
+    private static final String TREES_DIRECTORY = "src/test/resources/dk";
+
+    @Test
+    public void characterLevel() throws IOException {
+        assertExpectedTrees(Grammar.Level.CHARACTER);
+    }
+
+    @Test
+    public void tokenLevel() throws IOException {
+        assertExpectedTrees(Grammar.Level.TOKEN);
+    }
+
+    private static void assertExpectedTrees(Grammar.Level level) throws IOException {
+        Context.DEBUG = false;
+
+        Grammar g = new Grammar(GRAMMAR_FILE_PATH, TERMINALS_FILE_PATH, level);
+        DK1 dk1 = new DK1(g);
+        ParseTable table = dk1.getParseTable();
+        CompressedParseTable compressed = new CompressedParseTable(table);
+
+        String trees = Files.readString(Path.of(TREES_DIRECTORY, level + ".trees"));
+        for (String block : trees.split("\n\n")) {
+            int endOfProgram = block.indexOf('\n');
+            String program = block.substring(0, endOfProgram);
+            String expected = block.substring(endOfProgram + 1);
+            ArrayList<Token> tokens = g.tokenize(program);
+
+            for (DK1.Engine engine : DK1.Engine.values()) {
+                assertTree(expected, dk1.parseString(program, engine), level + ", engine " + engine + ": " + program);
+            }
+            for (boolean collapseUnitChains : new boolean[]{true, false}) {
+                assertTree(expected, table.parse(tokens, collapseUnitChains), level + ", parse table, collapsed " + collapseUnitChains + ": " + program);
+                assertTree(expected, compressed.parse(tokens, collapseUnitChains), level + ", compressed parse table, collapsed " + collapseUnitChains + ": " + program);
+            }
+        }
+    }
+
+    private static void assertTree(String expected, DTE tree, String message) {
+        assertEquals(message, expected, describe(tree));
+    }
+
+    // Prints the tree as it is navigated, one node per line indented by its depth, with the terminals quoted. ‘DTE.toString’ follows, which also
+    // prints the whitespace leaves that navigation skips.
+    private static String describe(DTE root) {
+        StringBuilder sb = new StringBuilder();
+        ArrayDeque<DTE> stack = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        stack.push(root);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            DTE dte = stack.pop();
+            int depth = depths.pop();
+            String content = dte.getLabel().getContent();
+            sb.append("  ".repeat(depth)).append(dte.getLabel().isTerminal() ? "\"" + content + "\"" : content).append('\n');
+
+            List<DTE> sons = new ArrayList<>();
+            for (DTE son = dte.getFirstSon(); son != null; son = son.getBrother()) {
+                sons.add(son);
+            }
+            for (int i = sons.size() - 1; i >= 0; i--) {
+                stack.push(sons.get(i));
+                depths.push(depth + 1);
+            }
+        }
+        return sb.append(root).toString();
+    }
+}